@@ -1,13 +1,26 @@
 package com.devbrackets.android.playlistcoredemo;
 
 import android.app.Application;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
+import androidx.annotation.NonNull;
+
+import com.devbrackets.android.playlistcore.api.MediaPlayerApi;
+import com.devbrackets.android.playlistcore.components.mediaplayer.MediaPlayerPool;
+import com.devbrackets.android.playlistcore.manager.BasePlaylistManager;
+import com.devbrackets.android.playlistcoredemo.data.MediaItem;
+import com.devbrackets.android.playlistcoredemo.helper.AudioApi;
 import com.devbrackets.android.playlistcoredemo.manager.PlaylistManager;
 
+import java.util.concurrent.Executor;
+
 public class App extends Application {
 
     private static App application;
     private static PlaylistManager playlistManager;
+    private static MediaPlayerPool<MediaItem> mediaPlayerPool;
 
     @Override
     public void onCreate() {
@@ -15,6 +28,23 @@ public class App extends Application {
 
         application = this;
         playlistManager = new PlaylistManager(this);
+
+        // The ExoMedia players need a Looper, so they are warmed up on the main thread ahead of being acquired
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        mediaPlayerPool = new MediaPlayerPool<>(this, MediaPlayerPool.DEFAULT_MAX_IDLE_PER_TYPE, new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                mainHandler.post(command);
+            }
+        });
+
+        mediaPlayerPool.register(BasePlaylistManager.AUDIO, new MediaPlayerPool.Factory<MediaItem>() {
+            @NonNull
+            @Override
+            public MediaPlayerApi<MediaItem> create(@NonNull Context context) {
+                return new AudioApi(context);
+            }
+        });
     }
 
     @Override
@@ -23,12 +53,19 @@ public class App extends Application {
 
         application = null;
         playlistManager = null;
+
+        mediaPlayerPool.release();
+        mediaPlayerPool = null;
     }
 
     public static PlaylistManager getPlaylistManager() {
         return playlistManager;
     }
 
+    public static MediaPlayerPool<MediaItem> getMediaPlayerPool() {
+        return mediaPlayerPool;
+    }
+
     public static App getApplication() {
         return application;
     }
@@ -8,7 +8,6 @@ import com.devbrackets.android.playlistcore.components.playlisthandler.DefaultPl
 import com.devbrackets.android.playlistcore.components.playlisthandler.PlaylistHandler;
 import com.devbrackets.android.playlistcoredemo.App;
 import com.devbrackets.android.playlistcoredemo.data.MediaItem;
-import com.devbrackets.android.playlistcoredemo.helper.AudioApi;
 import com.devbrackets.android.playlistcoredemo.helper.cast.CastMediaPlayer;
 import com.devbrackets.android.playlistcoredemo.manager.PlaylistManager;
 
@@ -24,9 +23,8 @@ public class MediaService extends BasePlaylistService<MediaItem, PlaylistManager
     public void onCreate() {
         super.onCreate();
 
-        // Adds the audio player implementation, otherwise there's nothing to play media with
+        // Adds the cast player implementation, the audio players are provided by the App's MediaPlayerPool
         getPlaylistManager().getMediaPlayers().add(new CastMediaPlayer(getApplicationContext(), this, this));
-        getPlaylistManager().getMediaPlayers().add(new AudioApi(getApplicationContext()));
     }
 
     @Override
@@ -39,6 +37,7 @@ public class MediaService extends BasePlaylistService<MediaItem, PlaylistManager
         }
 
         getPlaylistManager().getMediaPlayers().clear();
+        App.getMediaPlayerPool().trim();
     }
 
     @NonNull
@@ -57,12 +56,15 @@ public class MediaService extends BasePlaylistService<MediaItem, PlaylistManager
             }
         });
 
-        return new DefaultPlaylistHandler.Builder<>(
+        DefaultPlaylistHandler.Builder<MediaItem, PlaylistManager> builder = new DefaultPlaylistHandler.Builder<>(
                 getApplicationContext(),
                 getClass(),
                 getPlaylistManager(),
                 imageProvider
-        ).build();
+        );
+
+        builder.setMediaPlayerPool(App.getMediaPlayerPool());
+        return builder.build();
     }
 
     /**
@@ -20,6 +20,7 @@ import com.devbrackets.android.playlistcore.data.PlaybackState;
 import com.devbrackets.android.playlistcore.data.PlaylistItemChange;
 import com.devbrackets.android.playlistcore.listener.PlaylistListener;
 import com.devbrackets.android.playlistcore.listener.ProgressListener;
+import com.devbrackets.android.playlistcore.manager.BasePlaylistManager;
 import com.devbrackets.android.playlistcoredemo.App;
 import com.devbrackets.android.playlistcoredemo.R;
 import com.devbrackets.android.playlistcoredemo.data.MediaItem;
@@ -93,6 +94,9 @@ public class AudioPlayerActivity extends AppCompatActivity implements PlaylistLi
         playlistManager.registerPlaylistListener(this);
         playlistManager.registerProgressListener(this);
 
+        //Prepares an audio player ahead of time while we are in the foreground
+        App.getMediaPlayerPool().warmUp(BasePlaylistManager.AUDIO);
+
         //Makes sure to retrieve the current playback information
         updateCurrentPlaybackInformation();
     }
@@ -396,6 +400,9 @@ public class AudioPlayerActivity extends AppCompatActivity implements PlaylistLi
 
             seekPosition = progress;
             currentPositionView.setText(formatMs(progress));
+
+            //noinspection Range - progress won't be less than 0
+            playlistManager.invokeScrub(progress);
         }
 
         @Override
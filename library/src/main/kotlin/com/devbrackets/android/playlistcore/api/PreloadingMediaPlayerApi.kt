@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.api
+
+/**
+ * A [MediaPlayerApi] that is able to prepare the next item on a standby instance
+ * while the current item is still playing, allowing the
+ * [com.devbrackets.android.playlistcore.components.playlisthandler.PlaylistHandler]
+ * to switch to it without waiting for it to be prepared (gapless playback).
+ *
+ * Only a single item is preloaded at a time; preloading another item replaces
+ * the previously preloaded one.
+ */
+interface PreloadingMediaPlayerApi<I : PlaylistItem> : MediaPlayerApi<I> {
+
+    /**
+     * Starts preparing the [item] on the standby instance without affecting
+     * the playback of the current item.  No status callbacks should be reported
+     * for the preloaded item until it is played with [playPreloadedItem]
+     *
+     * @param item The item that is expected to be played next
+     */
+    fun preloadItem(item: I)
+
+    /**
+     * Discards the preloaded item (if any), releasing the resources used to prepare it
+     */
+    fun clearPreload()
+
+    /**
+     * Switches playback to the preloaded [item].  Once switched the player should be
+     * ready to play (no [com.devbrackets.android.playlistcore.listener.MediaStatusListener.onPrepared]
+     * is expected), and report the status of the [item] as it would for an item
+     * started with [playItem].  A player that is also a [RequestAwareMediaPlayerApi]
+     * should continue to report the generation of the most recent request.
+     *
+     * @param item The item to play, this will be the item passed to [preloadItem]
+     * @return `true` if the player switched to the [item], `false` if it wasn't
+     *         able to (e.g. the preload failed) and should be asked to [playItem] instead
+     */
+    fun playPreloadedItem(item: I): Boolean
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.api
+
+import androidx.annotation.IntRange
+
+/**
+ * A [MediaPlayerApi] that associates the requests made by the
+ * [com.devbrackets.android.playlistcore.components.playlisthandler.PlaylistHandler] with
+ * a generation so that callbacks for requests that have been superseded (e.g. the
+ * prepare of an item that was skipped) can be ignored, and so that those requests can
+ * be cancelled instead of completed.
+ *
+ * Implementations should report the generation of the request with the generation
+ * variants of the [com.devbrackets.android.playlistcore.listener.MediaStatusListener]
+ * callbacks.
+ */
+interface RequestAwareMediaPlayerApi<I : PlaylistItem> : MediaPlayerApi<I> {
+
+    /**
+     * Starts preparing the [item] for playback
+     *
+     * @param item The item to play
+     * @param requestGeneration The generation to report with the callbacks for the [item]
+     */
+    fun playItem(item: I, requestGeneration: Long)
+
+    /**
+     * Seeks to the specified position
+     *
+     * @param milliseconds The position to seek to
+     * @param requestGeneration The generation to report with the seek completion
+     */
+    fun seekTo(@IntRange(from = 0) milliseconds: Long, requestGeneration: Long)
+
+    /**
+     * Informs the player that the request with the [requestGeneration] is no longer
+     * needed, and should be aborted if it is still in progress (e.g. preparing)
+     */
+    fun cancelRequest(requestGeneration: Long)
+}
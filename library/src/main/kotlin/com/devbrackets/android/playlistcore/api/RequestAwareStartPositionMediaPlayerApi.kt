@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.api
+
+import androidx.annotation.IntRange
+
+/**
+ * A [RequestAwareMediaPlayerApi] that is able to start preparing an item at a specific
+ * position (see [StartPositionMediaPlayerApi]) while reporting the generation of the request.
+ */
+interface RequestAwareStartPositionMediaPlayerApi<I : PlaylistItem> : StartPositionMediaPlayerApi<I>, RequestAwareMediaPlayerApi<I> {
+
+    /**
+     * Starts preparing the [item] for playback at the [startPositionMillis], reporting the
+     * [requestGeneration] with the callbacks for the [item]
+     *
+     * @param item The item to play
+     * @param startPositionMillis The position (in milliseconds) to start playback at
+     * @param requestGeneration The generation to report with the callbacks for the [item]
+     */
+    fun playItem(item: I, @IntRange(from = 0) startPositionMillis: Long, requestGeneration: Long)
+}
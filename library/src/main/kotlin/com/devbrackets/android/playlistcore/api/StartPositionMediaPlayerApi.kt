@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.api
+
+import androidx.annotation.IntRange
+
+/**
+ * A [MediaPlayerApi] that is able to start preparing an item at a specific position.
+ * This avoids preparing (and for streams, buffering) the start of the item only to
+ * seek away from it once it has been prepared.
+ *
+ * Players that are also a [RequestAwareMediaPlayerApi] should implement
+ * [RequestAwareStartPositionMediaPlayerApi] instead, otherwise they will be
+ * prepared from the start of the item and seeked once prepared.
+ */
+interface StartPositionMediaPlayerApi<I : PlaylistItem> : MediaPlayerApi<I> {
+
+    /**
+     * Starts preparing the [item] for playback at the [startPositionMillis].  Once
+     * prepared the position should be the [startPositionMillis] without a seek
+     * being reported.
+     *
+     * @param item The item to play
+     * @param startPositionMillis The position (in milliseconds) to start playback at
+     */
+    fun playItem(item: I, @IntRange(from = 0) startPositionMillis: Long)
+}
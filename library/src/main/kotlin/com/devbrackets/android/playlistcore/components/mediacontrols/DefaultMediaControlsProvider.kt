@@ -37,7 +37,15 @@ open class DefaultMediaControlsProvider(protected val context: Context) : MediaC
         //Updates the available playback controls
         val playbackStateBuilder = PlaybackStateCompat.Builder()
         playbackStateBuilder.setActions(getPlaybackOptions(mediaInfo.mediaState))
-        playbackStateBuilder.setState(getPlaybackState(mediaInfo.mediaState.isPlaying), PlaybackStateCompat.PLAYBACK_POSITION_UNKNOWN, 1.0f)
+
+        // Reports the position and speed so that the system can extrapolate the progress without frequent updates
+        with(mediaInfo.mediaState) {
+            if (position == MediaInfo.POSITION_UNKNOWN) {
+                playbackStateBuilder.setState(getPlaybackState(this), PlaybackStateCompat.PLAYBACK_POSITION_UNKNOWN, playbackSpeed)
+            } else {
+                playbackStateBuilder.setState(getPlaybackState(this), position, playbackSpeed, positionUpdateTime)
+            }
+        }
 
         mediaSession.setPlaybackState(playbackStateBuilder.build())
 
@@ -48,7 +56,18 @@ open class DefaultMediaControlsProvider(protected val context: Context) : MediaC
 
     @PlaybackStateCompat.State
     protected open fun getPlaybackState(isPlaying: Boolean): Int {
-        return if (isPlaying) PlaybackStateCompat.STATE_PLAYING else PlaybackStateCompat.STATE_CONNECTING
+        return if (isPlaying) PlaybackStateCompat.STATE_PLAYING else PlaybackStateCompat.STATE_PAUSED
+    }
+
+    /**
+     * Determines the [PlaybackStateCompat.State] to report for the [mediaState]
+     *
+     * @param mediaState The current media playback state
+     * @return The state to report to the media session
+     */
+    @PlaybackStateCompat.State
+    protected open fun getPlaybackState(mediaState: MediaInfo.MediaState): Int {
+        return if (mediaState.isLoading) PlaybackStateCompat.STATE_BUFFERING else getPlaybackState(mediaState.isPlaying)
     }
 
     /**
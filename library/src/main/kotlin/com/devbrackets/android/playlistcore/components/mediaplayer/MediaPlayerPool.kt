@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.components.mediaplayer
+
+import android.app.ActivityManager
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.util.Log
+import android.util.SparseArray
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.api.MediaPlayerApi
+import com.devbrackets.android.playlistcore.api.PlaylistItem
+import com.devbrackets.android.playlistcore.listener.MediaStatusListener
+import java.util.*
+import java.util.concurrent.*
+
+/**
+ * Creates and recycles [MediaPlayerApi] instances for the media types registered with
+ * a [Factory] so that players don't need to be created up front, and so that released
+ * players are reused instead of being rebuilt.  Idle players are only created ahead of
+ * time when explicitly requested with [warmUp] (while the app is in the foreground), and
+ * are released when the system reports memory pressure.
+ *
+ * @param context The [Context] used to create the players and monitor memory pressure
+ * @param maxIdlePerType The maximum number of idle players to keep for each registered [Factory]
+ * @param warmUpExecutor The [Executor] to create the players requested with [warmUp] on
+ */
+open class MediaPlayerPool<I : PlaylistItem> @JvmOverloads constructor(
+        context: Context,
+        @IntRange(from = 0) protected val maxIdlePerType: Int = DEFAULT_MAX_IDLE_PER_TYPE,
+        protected val warmUpExecutor: Executor = newWarmUpExecutor()
+) : ComponentCallbacks2 {
+    companion object {
+        private const val TAG = "MediaPlayerPool"
+
+        const val DEFAULT_MAX_IDLE_PER_TYPE = 1
+
+        private const val WARM_UP_THREAD_NAME = "MediaPlayerPool_WarmUp"
+        private const val WARM_UP_KEEP_ALIVE_SECONDS = 30L
+
+        /**
+         * Creates the default [Executor] used to warm up players.  This only keeps
+         * a thread alive while players are being created.
+         */
+        private fun newWarmUpExecutor(): Executor {
+            return ThreadPoolExecutor(0, 1, WARM_UP_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, LinkedBlockingQueue()) {
+                Thread(it, WARM_UP_THREAD_NAME).apply {
+                    isDaemon = true
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the [MediaPlayerApi]s for a set of media types.  [create] is called on the
+     * thread calling [acquire], unless the app calls [warmUp] in which case it will also be
+     * called from the [warmUpExecutor].  Players that need a [android.os.Looper] when they
+     * are created should be warmed up with an [Executor] that runs on a Looper thread (e.g.
+     * one that posts to the main thread's [android.os.Handler]).
+     */
+    interface Factory<I : PlaylistItem> {
+        fun create(context: Context): MediaPlayerApi<I>
+    }
+
+    /**
+     * The factory registered for a [mediaTypes] bitmask along with its idle players
+     */
+    protected class Entry<I : PlaylistItem>(val mediaTypes: Int, val factory: Factory<I>) {
+        val idlePlayers = ArrayDeque<MediaPlayerApi<I>>()
+        var pendingWarmUps = 0
+    }
+
+    protected val context: Context = context.applicationContext
+    protected val lock = Any()
+    protected val entries = ArrayList<Entry<I>>()
+
+    /**
+     * The players created by this pool mapped to the [Entry] that created them
+     */
+    protected val ownedPlayers = IdentityHashMap<MediaPlayerApi<I>, Entry<I>>()
+
+    /**
+     * The [Entry] for each media type that has been looked up, cleared when a [Factory] is registered
+     */
+    protected val entryCache = SparseArray<Entry<I>>()
+
+    /**
+     * The number of players that were reused instead of created
+     */
+    var reuseCount = 0
+        private set
+
+    /**
+     * The number of players that have been created
+     */
+    var createCount = 0
+        private set
+
+    /**
+     * The [MediaStatusListener] given to idle players so that they don't keep
+     * reporting to (or holding a reference to) the component that last used them
+     */
+    protected val idleStatusListener = object : MediaStatusListener<I> {
+        override fun onPrepared(mediaPlayer: MediaPlayerApi<I>) {
+            // Purposefully left blank
+        }
+
+        override fun onBufferingUpdate(mediaPlayer: MediaPlayerApi<I>, percent: Int) {
+            // Purposefully left blank
+        }
+
+        override fun onSeekComplete(mediaPlayer: MediaPlayerApi<I>) {
+            // Purposefully left blank
+        }
+
+        override fun onCompletion(mediaPlayer: MediaPlayerApi<I>) {
+            // Purposefully left blank
+        }
+
+        override fun onError(mediaPlayer: MediaPlayerApi<I>): Boolean {
+            return false
+        }
+    }
+
+    private var released = false
+
+    init {
+        this.context.registerComponentCallbacks(this)
+    }
+
+    /**
+     * Registers the [factory] used to create players for items with any of the [mediaTypes]
+     *
+     * @param mediaTypes The bitmask of [PlaylistItem.mediaType]s the [factory] creates players for
+     * @param factory The [Factory] to create the players with
+     */
+    fun register(mediaTypes: Int, factory: Factory<I>) {
+        synchronized(lock) {
+            entries.add(Entry(mediaTypes, factory))
+            entryCache.clear()
+        }
+    }
+
+    /**
+     * Determines if a player can be provided for the [item]
+     */
+    fun supports(item: I): Boolean {
+        return synchronized(lock) {
+            getEntry(item.mediaType) != null
+        }
+    }
+
+    /**
+     * Determines if the [player] was created by this pool
+     */
+    fun owns(player: MediaPlayerApi<I>): Boolean {
+        return synchronized(lock) {
+            ownedPlayers.containsKey(player)
+        }
+    }
+
+    /**
+     * Retrieves a player to play the [item] with, reusing an idle player when one
+     * is available and creating a new one on the calling thread otherwise.  The player
+     * should be returned with [release] once it is no longer needed.
+     *
+     * @param item The item to retrieve a player for
+     * @return The player or `null` if no [Factory] is registered for the item, or the created player doesn't handle it
+     */
+    open fun acquire(item: I): MediaPlayerApi<I>? {
+        val entry = synchronized(lock) {
+            val entry = getEntry(item.mediaType) ?: return null
+            entry.idlePlayers.pollFirst()?.let {
+                reuseCount++
+                return it
+            }
+
+            entry
+        }
+
+        val player = create(entry)
+        if (!player.handlesItem(item)) {
+            Log.w(TAG, "The player created for media type ${item.mediaType} doesn't handle the item")
+            release(player)
+            return null
+        }
+
+        return player
+    }
+
+    /**
+     * Returns the [player] to the pool so that it can be reused.  If the pool already
+     * has [maxIdlePerType] idle players the [player] will be released instead.  Idle
+     * players have their [MediaStatusListener] replaced so the previous listener isn't
+     * retained; callers should set their own listener after [acquire].
+     */
+    open fun release(player: MediaPlayerApi<I>) {
+        val idle = synchronized(lock) {
+            val entry = ownedPlayers[player] ?: return
+            if (released || entry.idlePlayers.size >= maxIdlePerType) {
+                ownedPlayers.remove(player)
+                false
+            } else {
+                player.setMediaStatusListener(idleStatusListener)
+                entry.idlePlayers.addFirst(player)
+                true
+            }
+        }
+
+        if (!idle) {
+            player.release()
+        }
+    }
+
+    /**
+     * Creates an idle player on the [warmUpExecutor] for each registered [Factory] that
+     * doesn't already have one.  This is only performed while the app is in the foreground
+     * so that warming up doesn't compete with the system while in the background.
+     */
+    open fun warmUp() {
+        synchronized(lock) {
+            entries.forEach { warmUp(it) }
+        }
+    }
+
+    /**
+     * Creates an idle player for the [mediaType] on the [warmUpExecutor] if there isn't
+     * one already.  See [warmUp]
+     */
+    open fun warmUp(mediaType: Int) {
+        synchronized(lock) {
+            getEntry(mediaType)?.let { warmUp(it) }
+        }
+    }
+
+    /**
+     * Releases all idle players
+     */
+    open fun trim() {
+        val players = synchronized(lock) {
+            entries.flatMap { entry ->
+                entry.idlePlayers.toList().also {
+                    entry.idlePlayers.clear()
+                }
+            }.onEach {
+                ownedPlayers.remove(it)
+            }
+        }
+
+        players.forEach { it.release() }
+    }
+
+    /**
+     * Releases the idle players and stops monitoring memory pressure.  Players that
+     * are still in use will be released when they are returned with [release]
+     */
+    open fun release() {
+        synchronized(lock) {
+            released = true
+        }
+
+        context.unregisterComponentCallbacks(this)
+        trim()
+    }
+
+    override fun onTrimMemory(level: Int) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trim()
+        }
+    }
+
+    override fun onLowMemory() {
+        trim()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {
+        // Purposefully left blank
+    }
+
+    /**
+     * Determines if the app is in the foreground, where warming up players won't
+     * be competing with the system for resources
+     */
+    protected open fun isAppInForeground(): Boolean {
+        val processInfo = ActivityManager.RunningAppProcessInfo()
+        ActivityManager.getMyMemoryState(processInfo)
+        return processInfo.importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND
+    }
+
+    /**
+     * Retrieves the [Entry] for the [mediaType].  This should only be called while holding the [lock]
+     */
+    protected fun getEntry(mediaType: Int): Entry<I>? {
+        entryCache[mediaType]?.let {
+            return it
+        }
+
+        return entries.firstOrNull { it.mediaTypes and mediaType != 0 }?.also {
+            entryCache.put(mediaType, it)
+        }
+    }
+
+    /**
+     * Queues the creation of an idle player for the [entry].  This should only be called while holding the [lock]
+     */
+    protected open fun warmUp(entry: Entry<I>) {
+        if (released || entry.idlePlayers.size + entry.pendingWarmUps >= Math.min(1, maxIdlePerType) || !isAppInForeground()) {
+            return
+        }
+
+        entry.pendingWarmUps++
+        try {
+            warmUpExecutor.execute {
+                val player = try {
+                    create(entry)
+                } catch (e: Exception) {
+                    Log.e(TAG, "Unable to warm up a player for media types ${entry.mediaTypes}", e)
+                    null
+                }
+
+                synchronized(lock) {
+                    entry.pendingWarmUps--
+                }
+
+                player?.let { release(it) }
+            }
+        } catch (e: RejectedExecutionException) {
+            Log.w(TAG, "Unable to warm up a player for media types ${entry.mediaTypes}", e)
+            entry.pendingWarmUps--
+        }
+    }
+
+    private fun create(entry: Entry<I>): MediaPlayerApi<I> {
+        val player = entry.factory.create(context)
+        synchronized(lock) {
+            ownedPlayers[player] = entry
+            createCount++
+        }
+
+        return player
+    }
+}
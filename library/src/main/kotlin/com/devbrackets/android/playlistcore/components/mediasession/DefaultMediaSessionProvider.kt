@@ -21,11 +21,14 @@ import android.app.Service
 import android.content.ComponentName
 import android.content.Context
 import android.content.Intent
+import android.graphics.Bitmap
 import android.graphics.BitmapFactory
 import android.os.Build
 import android.support.v4.media.MediaMetadataCompat
 import android.support.v4.media.session.MediaSessionCompat
 import android.util.Log
+import android.util.SparseArray
+import androidx.annotation.DrawableRes
 import androidx.core.view.ContentInfoCompat
 import com.devbrackets.android.playlistcore.data.MediaInfo
 import com.devbrackets.android.playlistcore.data.RemoteActions
@@ -49,26 +52,91 @@ open class DefaultMediaSessionProvider(val context: Context, val serviceClass: C
     return mediaSession
   }
 
+  /**
+   * The decoded display icons, keyed by their resource id.  Resources that
+   * couldn't be decoded are stored as `null` so they aren't decoded again.
+   */
+  protected val displayIcons = SparseArray<Bitmap?>()
+
+  protected var callbackRegistered = false
+
+  /**
+   * The values included in the last metadata pushed to the [mediaSession],
+   * used to skip pushing metadata that hasn't changed
+   */
+  protected var metadataPushed = false
+  protected var lastTitle: String? = null
+  protected var lastAlbum: String? = null
+  protected var lastArtist: String? = null
+  protected var lastIcon: Bitmap? = null
+  protected var lastArtwork: Bitmap? = null
+
   override fun update(mediaInfo: MediaInfo) {
-    mediaSession.setCallback(this)
+    if (!callbackRegistered) {
+      mediaSession.setCallback(this)
+      callbackRegistered = true
+    }
+
+    val title = mediaInfo.title
+    val album = mediaInfo.album
+    val artist = mediaInfo.artist
+    val icon = getDisplayIcon(mediaInfo.appIcon)
+    val artwork = mediaInfo.artwork
+
+    // Bitmaps are compared by identity since comparing their content is expensive
+    if (metadataPushed && title == lastTitle && album == lastAlbum && artist == lastArtist && icon === lastIcon && artwork === lastArtwork) {
+      return
+    }
 
     // Updates the current media MetaData
     val metaDataBuilder = MediaMetadataCompat.Builder()
-    metaDataBuilder.putString(MediaMetadataCompat.METADATA_KEY_TITLE, mediaInfo.title)
-    metaDataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ALBUM, mediaInfo.album)
-    metaDataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ARTIST, mediaInfo.artist)
+    metaDataBuilder.putString(MediaMetadataCompat.METADATA_KEY_TITLE, title)
+    metaDataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ALBUM, album)
+    metaDataBuilder.putString(MediaMetadataCompat.METADATA_KEY_ARTIST, artist)
 
     // Updates the icon
-    BitmapFactory.decodeResource(context.resources, mediaInfo.appIcon)?.let {
+    icon?.let {
       metaDataBuilder.putBitmap(MediaMetadataCompat.METADATA_KEY_DISPLAY_ICON, it)
     }
 
     // Updates the artwork
-    if (mediaInfo.artwork != null) {
-      metaDataBuilder.putBitmap(MediaMetadataCompat.METADATA_KEY_ALBUM_ART, mediaInfo.artwork)
+    if (artwork != null) {
+      metaDataBuilder.putBitmap(MediaMetadataCompat.METADATA_KEY_ALBUM_ART, artwork)
     }
 
     mediaSession.setMetadata(metaDataBuilder.build())
+
+    metadataPushed = true
+    lastTitle = title
+    lastAlbum = album
+    lastArtist = artist
+    lastIcon = icon
+    lastArtwork = artwork
+  }
+
+  /**
+   * Forces the metadata to be pushed to the [mediaSession] on the next
+   * [update] even if it hasn't changed
+   */
+  open fun invalidateMetadata() {
+    metadataPushed = false
+    lastIcon = null
+    lastArtwork = null
+  }
+
+  /**
+   * Retrieves the decoded display icon for the [iconRes], only decoding
+   * the resource the first time it is requested
+   */
+  protected open fun getDisplayIcon(@DrawableRes iconRes: Int): Bitmap? {
+    val index = displayIcons.indexOfKey(iconRes)
+    if (index >= 0) {
+      return displayIcons.valueAt(index)
+    }
+
+    return BitmapFactory.decodeResource(context.resources, iconRes).also {
+      displayIcons.put(iconRes, it)
+    }
   }
 
   override fun onPlay() {
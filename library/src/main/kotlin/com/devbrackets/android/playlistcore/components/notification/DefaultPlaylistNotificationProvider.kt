@@ -20,7 +20,10 @@ import android.annotation.TargetApi
 import android.app.*
 import android.content.Context
 import android.content.Intent
+import android.graphics.Bitmap
 import android.os.Build
+import android.util.SparseArray
+import androidx.annotation.DrawableRes
 import androidx.core.app.NotificationCompat
 import androidx.media.app.NotificationCompat.MediaStyle
 import android.support.v4.media.session.MediaSessionCompat
@@ -49,59 +52,170 @@ open class DefaultPlaylistNotificationProvider(protected val context: Context) :
   protected open val clickPendingIntent: PendingIntent?
     get() = null
 
+  /**
+   * The amount of time (in nanoseconds) the most recent [buildNotification] took
+   */
+  var lastBuildTimeNanos = 0L
+    private set
+
+  /**
+   * The total amount of time (in nanoseconds) spent in [buildNotification]
+   */
+  var totalBuildTimeNanos = 0L
+    private set
+
+  /**
+   * The number of notifications built with [buildNotification]
+   */
+  var buildCount = 0
+    private set
+
+  /**
+   * The number of notifications built with [buildNotification] that re-used
+   * the [templateBuilder] instead of creating a new builder
+   */
+  var templateReuseCount = 0
+    private set
+
+  protected var notificationChannelCreated = false
+
+  protected var pendingIntentServiceClass: Class<out Service>? = null
+  protected val pendingIntents = HashMap<String, PendingIntent>()
+
+  /**
+   * The actions added with [setActions], keyed by their icon resource
+   */
+  protected val actions = SparseArray<NotificationCompat.Action>()
+
+  protected val previousTitle: String by lazy { context.resources.getString(R.string.playlistcore_default_notification_previous) }
+  protected val playTitle: String by lazy { context.resources.getString(R.string.playlistcore_default_notification_play) }
+  protected val pauseTitle: String by lazy { context.resources.getString(R.string.playlistcore_default_notification_pause) }
+  protected val nextTitle: String by lazy { context.resources.getString(R.string.playlistcore_default_notification_next) }
+
+  /**
+   * The builder used for the previous notification.  This is re-used (with only
+   * the playback state dependent values updated) when the content of the
+   * notification hasn't changed.
+   */
+  protected var templateBuilder: NotificationCompat.Builder? = null
+  protected var templateKey: TemplateKey? = null
+
   override fun buildNotification(info: MediaInfo, mediaSession: MediaSessionCompat, serviceClass: Class<out Service>): Notification {
-    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+    val startTime = System.nanoTime()
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && !notificationChannelCreated) {
       buildNotificationChannel()
+      notificationChannelCreated = true
+    }
+
+    val notification = getTemplateBuilder(info, mediaSession, serviceClass).apply {
+      val allowSwipe = !(info.mediaState.isPlaying)
+      setAutoCancel(allowSwipe)
+      setOngoing(!allowSwipe)
+
+      clearActions()
+      setActions(this, info, serviceClass)
+    }.build()
+
+    lastBuildTimeNanos = System.nanoTime() - startTime
+    totalBuildTimeNanos += lastBuildTimeNanos
+    buildCount++
+
+    return notification
+  }
+
+  /**
+   * Retrieves the builder with the content for the notification populated, re-using the
+   * [templateBuilder] when the content hasn't changed since the previous notification.
+   */
+  protected open fun getTemplateBuilder(info: MediaInfo, mediaSession: MediaSessionCompat, serviceClass: Class<out Service>): NotificationCompat.Builder {
+    var contentText = info.album
+    if (info.artist.isNotBlank()) {
+      contentText += if (contentText.isNotBlank()) " - " + info.artist else info.artist
+    }
+
+    val key = TemplateKey(serviceClass, mediaSession, info.appIcon, info.largeNotificationIcon, info.title, contentText, clickPendingIntent)
+    templateBuilder?.let {
+      if (key == templateKey) {
+        templateReuseCount++
+        return it
+      }
     }
 
     return NotificationCompat.Builder(context, CHANNEL_ID).apply {
       setSmallIcon(info.appIcon)
       setLargeIcon(info.largeNotificationIcon)
 
-      var contentText = info.album
-      if (info.artist.isNotBlank()) {
-        contentText += if (contentText.isNotBlank()) " - " + info.artist else info.artist
-      }
-
       setContentTitle(info.title)
       setContentText(contentText)
 
-      setContentIntent(clickPendingIntent)
-      setDeleteIntent(createPendingIntent(serviceClass, RemoteActions.ACTION_STOP))
-
-      val allowSwipe = !(info.mediaState.isPlaying)
-      setAutoCancel(allowSwipe)
-      setOngoing(!allowSwipe)
+      setContentIntent(key.clickIntent)
+      setDeleteIntent(getPendingIntent(serviceClass, RemoteActions.ACTION_STOP))
 
       setCategory(Notification.CATEGORY_TRANSPORT)
       setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
 
-      setActions(this, info, serviceClass)
       setStyle(buildMediaStyle(mediaSession, serviceClass))
-    }.build()
+    }.also {
+      templateBuilder = it
+      templateKey = key
+    }
+  }
+
+  /**
+   * Clears the cached [templateBuilder], [PendingIntent]s and actions so that they
+   * are re-created for the next notification
+   */
+  open fun invalidate() {
+    templateBuilder = null
+    templateKey = null
+    pendingIntents.clear()
+    actions.clear()
   }
 
   protected open fun setActions(builder: NotificationCompat.Builder, info: MediaInfo, serviceClass: Class<out Service>) {
     with(info.mediaState) {
       // Previous
       var actionIcon = if (isPreviousEnabled) R.drawable.playlistcore_notification_previous else R.drawable.playlistcore_notification_previous_disabled
-      var title = context.resources.getString(R.string.playlistcore_default_notification_previous)
-      builder.addAction(actionIcon, title, createPendingIntent(serviceClass, RemoteActions.ACTION_PREVIOUS))
+      builder.addAction(getAction(actionIcon, previousTitle, serviceClass, RemoteActions.ACTION_PREVIOUS))
 
       // Play/Pause
       actionIcon = if (isPlaying) {
-        title = context.resources.getString(R.string.playlistcore_default_notification_pause)
         if (isLoading) R.drawable.playlistcore_notification_pause_disabled else R.drawable.playlistcore_notification_pause
       } else {
-        title = context.resources.getString(R.string.playlistcore_default_notification_play)
         if (isLoading) R.drawable.playlistcore_notification_play_disabled else R.drawable.playlistcore_notification_play
       }
-      builder.addAction(actionIcon, title, createPendingIntent(serviceClass, RemoteActions.ACTION_PLAY_PAUSE))
+      builder.addAction(getAction(actionIcon, if (isPlaying) pauseTitle else playTitle, serviceClass, RemoteActions.ACTION_PLAY_PAUSE))
 
       // Next
       actionIcon = if (isNextEnabled) R.drawable.playlistcore_notification_next else R.drawable.playlistcore_notification_next_disabled
-      title = context.resources.getString(R.string.playlistcore_default_notification_next)
-      builder.addAction(actionIcon, title, createPendingIntent(serviceClass, RemoteActions.ACTION_NEXT))
+      builder.addAction(getAction(actionIcon, nextTitle, serviceClass, RemoteActions.ACTION_NEXT))
+    }
+  }
+
+  /**
+   * Retrieves the cached action for the [actionIcon], creating it if it hasn't
+   * been created yet.  Each icon is only used for a single action.
+   */
+  protected open fun getAction(@DrawableRes actionIcon: Int, title: CharSequence, serviceClass: Class<out Service>, action: String): NotificationCompat.Action {
+    return actions.get(actionIcon) ?: NotificationCompat.Action(actionIcon, title, getPendingIntent(serviceClass, action)).also {
+      actions.put(actionIcon, it)
+    }
+  }
+
+  /**
+   * Retrieves the cached [PendingIntent] for the [action], creating it with
+   * [createPendingIntent] if it hasn't been created yet
+   */
+  protected open fun getPendingIntent(serviceClass: Class<out Service>, action: String): PendingIntent {
+    if (serviceClass != pendingIntentServiceClass) {
+      pendingIntentServiceClass = serviceClass
+      pendingIntents.clear()
+      actions.clear()
+    }
+
+    return pendingIntents[action] ?: createPendingIntent(serviceClass, action).also {
+      pendingIntents[action] = it
     }
   }
 
@@ -110,7 +224,7 @@ open class DefaultPlaylistNotificationProvider(protected val context: Context) :
       setMediaSession(mediaSession.sessionToken)
       setShowActionsInCompactView(0, 1, 2) // previous, play/pause, next
       setShowCancelButton(true)
-      setCancelButtonIntent(createPendingIntent(serviceClass, RemoteActions.ACTION_STOP))
+      setCancelButtonIntent(getPendingIntent(serviceClass, RemoteActions.ACTION_STOP))
     }
   }
 
@@ -158,4 +272,17 @@ open class DefaultPlaylistNotificationProvider(protected val context: Context) :
       else -> PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * The values used to populate the [templateBuilder]
+   */
+  protected data class TemplateKey(
+      val serviceClass: Class<out Service>,
+      val mediaSession: MediaSessionCompat,
+      val appIcon: Int,
+      val largeIcon: Bitmap?,
+      val title: String,
+      val contentText: String,
+      val clickIntent: PendingIntent?
+  )
+}
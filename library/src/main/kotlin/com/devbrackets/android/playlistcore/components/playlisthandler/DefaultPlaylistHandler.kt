@@ -19,13 +19,22 @@ package com.devbrackets.android.playlistcore.components.playlisthandler
 import android.app.NotificationManager
 import android.app.Service
 import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
 import android.util.Log
+import android.util.SparseIntArray
 import com.devbrackets.android.playlistcore.R
 import com.devbrackets.android.playlistcore.api.MediaPlayerApi
 import com.devbrackets.android.playlistcore.api.PlaylistItem
+import com.devbrackets.android.playlistcore.api.PreloadingMediaPlayerApi
+import com.devbrackets.android.playlistcore.api.RequestAwareMediaPlayerApi
+import com.devbrackets.android.playlistcore.api.RequestAwareStartPositionMediaPlayerApi
+import com.devbrackets.android.playlistcore.api.StartPositionMediaPlayerApi
 import com.devbrackets.android.playlistcore.components.audiofocus.AudioFocusProvider
 import com.devbrackets.android.playlistcore.components.audiofocus.DefaultAudioFocusProvider
 import com.devbrackets.android.playlistcore.components.image.ImageProvider
+import com.devbrackets.android.playlistcore.components.mediaplayer.MediaPlayerPool
 import com.devbrackets.android.playlistcore.components.mediacontrols.DefaultMediaControlsProvider
 import com.devbrackets.android.playlistcore.components.mediacontrols.MediaControlsProvider
 import com.devbrackets.android.playlistcore.components.mediasession.DefaultMediaSessionProvider
@@ -34,15 +43,29 @@ import com.devbrackets.android.playlistcore.components.notification.DefaultPlayl
 import com.devbrackets.android.playlistcore.components.notification.PlaylistNotificationProvider
 import com.devbrackets.android.playlistcore.data.MediaInfo
 import com.devbrackets.android.playlistcore.data.MediaProgress
+import com.devbrackets.android.playlistcore.data.MediaProgressSnapshot
 import com.devbrackets.android.playlistcore.data.PlaybackState
 import com.devbrackets.android.playlistcore.data.PlaylistItemChange
+import com.devbrackets.android.playlistcore.data.RepeatMode
 import com.devbrackets.android.playlistcore.listener.MediaStatusListener
 import com.devbrackets.android.playlistcore.listener.ProgressListener
 import com.devbrackets.android.playlistcore.listener.ServiceCallbacks
 import com.devbrackets.android.playlistcore.manager.BasePlaylistManager
 import com.devbrackets.android.playlistcore.util.MediaProgressPoll
+import com.devbrackets.android.playlistcore.util.ProgressListenerRegistry
 import com.devbrackets.android.playlistcore.util.SafeWifiLock
-
+import com.devbrackets.android.playlistcore.util.TimerWheel
+
+/**
+ * The default [PlaylistHandler] implementation.  By default all commands and player events are
+ * processed on the thread they are received on, when an [actor] is provided they are instead
+ * posted to, and processed in order on, the [PlaylistHandlerActor]'s thread.  In that case the
+ * [Listener] and providers will be called from that thread, while the [BasePlaylistManager]
+ * listeners are still informed on the main thread (with progress updates conflated).
+ *
+ * Items that aren't handled by any of the [BasePlaylistManager.mediaPlayers] are played with
+ * a player from the [mediaPlayerPool], which is returned to the pool once it's no longer used.
+ */
 @Suppress("MemberVisibilityCanPrivate")
 open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<I>> protected constructor(
         protected val context: Context,
@@ -53,11 +76,23 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         protected val mediaSessionProvider: MediaSessionProvider,
         protected val mediaControlsProvider: MediaControlsProvider,
         protected val audioFocusProvider: AudioFocusProvider<I>,
-        var listener: Listener<I>?
+        var listener: Listener<I>?,
+        protected val actor: PlaylistHandlerActor? = null,
+        protected val mediaPlayerPool: MediaPlayerPool<I>? = null
 ) : PlaylistHandler<I>(playlistManager.mediaPlayers), ProgressListener, MediaStatusListener<I> {
 
     companion object {
         const val TAG = "DefaultPlaylistHandler"
+        const val DEFAULT_PROGRESS_POLL_DELAY = 33 // ~30 fps
+        const val DEFAULT_SKIP_SETTLE_WINDOW = 300L
+        const val DEFAULT_SCRUB_DEBOUNCE = 150L
+        const val DEFAULT_PRELOAD_LEAD_TIME = 10_000L
+        const val DEFAULT_CROSSFADE_STEP = 16L // ~60 fps
+
+        private const val NO_SCRUB_POSITION = -1L
+
+        private const val ROUTE_UNKNOWN = -2
+        private const val ROUTE_NONE = -1
     }
 
     interface Listener<I : PlaylistItem> {
@@ -68,7 +103,54 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
     protected val mediaInfo = MediaInfo()
     protected val wifiLock = SafeWifiLock(context)
 
-    protected var mediaProgressPoll = MediaProgressPoll<I>()
+    /**
+     * The [Handler] used to process delayed events (e.g. coalesced media control updates),
+     * this runs on the [actor]'s thread when one is provided
+     */
+    protected val eventHandler = actor?.handler ?: Handler(Looper.getMainLooper())
+
+    /**
+     * The [Handler] the [playlistManager] listeners are informed on when running in actor
+     * mode, so that they're still called on the main thread (e.g. for updating views)
+     */
+    protected val listenerHandler: Handler? = actor?.let { Handler(Looper.getMainLooper()) }
+
+    /**
+     * The progress most recently reported by the [actor], guarded by itself.  This is copied to
+     * the [listenerMediaProgress] on the main thread so that the listeners can hold on to it
+     * while the next progress is reported.
+     */
+    protected val pendingListenerProgress = MediaProgress(0, 0, 0)
+    protected var listenerProgressPending = false
+    protected val listenerMediaProgress = MediaProgress(0, 0, 0)
+    protected val listenerProgressRunnable = Runnable {
+        synchronized(pendingListenerProgress) {
+            listenerProgressPending = false
+            with(pendingListenerProgress) {
+                listenerMediaProgress.update(position, bufferPercent, duration, timestamp)
+            }
+        }
+
+        playlistManager.onProgressUpdated(listenerMediaProgress)
+    }
+
+    protected var mediaProgressPoll = MediaProgressPoll<I>(eventHandler)
+
+    /**
+     * Mirrors the state of the [currentMediaPlayer] so that frequent reads
+     * (e.g. [isPlaying] and the progress poll) don't query the player directly
+     */
+    protected val playerStateMirror = PlayerStateMirror<I>()
+
+    /**
+     * The delay (in milliseconds) between progress polls used for the
+     * [ProgressListener]s that didn't request an interval
+     */
+    var progressPollDelay = DEFAULT_PROGRESS_POLL_DELAY
+        set(value) {
+            field = value
+            updateProgressPolling()
+        }
 
     protected val notificationManager: NotificationManager by lazy {
         context.getSystemService(Context.NOTIFICATION_SERVICE) as NotificationManager
@@ -76,6 +158,24 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
 
     protected lateinit var serviceCallbacks: ServiceCallbacks
 
+    /**
+     * Coalesces the media control updates requested with [updateMediaControls]
+     */
+    protected val mediaControlsUpdateScheduler by lazy {
+        MediaControlsUpdateScheduler(eventHandler, Runnable { performMediaControlsUpdate() })
+    }
+
+    /**
+     * The minimum amount of time (in milliseconds) between updates of the media session,
+     * media controls, and notification.  Updates requested within this window are
+     * combined in to a single update.
+     */
+    var mediaControlsUpdateWindow: Long
+        get() = mediaControlsUpdateScheduler.windowMillis
+        set(value) {
+            mediaControlsUpdateScheduler.windowMillis = value
+        }
+
     /**
      * Retrieves the ID to use for the notification and registering this
      * service as Foreground when media is playing
@@ -87,7 +187,31 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
      * Determines if media is currently playing
      */
     protected open val isPlaying: Boolean
-        get() = currentMediaPlayer?.isPlaying ?: false
+        get() = mirroredState.isPlaying
+
+    /**
+     * The [playerStateMirror], making sure it is mirroring the [currentMediaPlayer]
+     */
+    protected val mirroredState: PlayerStateMirror<I>
+        get() = playerStateMirror.apply {
+            if (mediaPlayer !== currentMediaPlayer) {
+                attach(currentMediaPlayer)
+            }
+        }
+
+    override val currentPlaylistPosition: Int
+        get() = playlistManager.currentPosition
+
+    override val currentPlaybackSpeed: Float
+        get() = playbackSpeed
+
+    /**
+     * Uses the [playerStateMirror] since the [currentMediaProgress] is updated in place by the
+     * [mediaProgressPoll], and the snapshot may be published from a player callback thread
+     */
+    override fun snapshotProgress(): MediaProgressSnapshot {
+        return playerStateMirror.lastKnownProgress(SystemClock.elapsedRealtime())
+    }
 
     protected open val isLoading: Boolean
         get() {
@@ -98,6 +222,27 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
 
     var currentPlaylistItem: I? = null
 
+    /**
+     * The speed the [currentMediaPlayer] is playing at, where `1` is normal speed.  This
+     * should be updated when the speed of the player is changed so that the progress
+     * reported to the media session (and extrapolated by the system) stays accurate.
+     */
+    var playbackSpeed = 1F
+        set(value) {
+            if (postToActor { playbackSpeed = value }) {
+                return
+            }
+
+            if (field == value) {
+                return
+            }
+
+            field = value
+            playerStateMirror.playbackRate = value
+            publishSnapshot()
+            updateMediaControls()
+        }
+
     protected var pausedForSeek = false
     protected var playingBeforeSeek = false
 
@@ -106,6 +251,148 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
 
     protected var sequentialErrors: Int = 0
 
+    /**
+     * Incremented for each item playback request so that callbacks from a
+     * [RequestAwareMediaPlayerApi] for superseded requests can be ignored
+     */
+    protected var playbackGeneration = 0L
+
+    /**
+     * Incremented for each seek request so that callbacks from a
+     * [RequestAwareMediaPlayerApi] for superseded seeks can be ignored
+     */
+    protected var seekGeneration = 0L
+
+    /**
+     * The [MediaPlayerApi] the request with the [playbackGeneration] was made to
+     */
+    protected var requestedPlayer: MediaPlayerApi<I>? = null
+
+    /**
+     * `true` while the request with the [playbackGeneration] is being prepared
+     */
+    protected var awaitingPrepare = false
+
+    /**
+     * `true` once the service has been asked to stop, until playback is started again
+     */
+    protected var serviceStopping = false
+
+    override val acceptsDirectCommands: Boolean
+        get() = !serviceStopping
+
+    /**
+     * The amount of time (in milliseconds) after a [next] or [previous] in which additional
+     * skips are combined, only preparing the item that was skipped to once no skips have been
+     * requested for this window.  The first skip is always prepared immediately.  Set to `0`
+     * to prepare each item immediately.
+     */
+    var skipSettleWindow = DEFAULT_SKIP_SETTLE_WINDOW
+
+    /**
+     * The maximum amount of time (in milliseconds) to wait for a scrub seek to
+     * complete before seeking to the next scrubbed position
+     */
+    var scrubDebounce = DEFAULT_SCRUB_DEBOUNCE
+
+    protected var scrubbing = false
+    protected var scrubSeekInFlight = false
+    protected var lastScrubSeekTime = 0L
+    protected var pendingScrubPosition = NO_SCRUB_POSITION
+    protected var finalScrubPosition = NO_SCRUB_POSITION
+    protected val scrubTimeout: TimerWheel.Timeout by lazy {
+        TimerWheel.shared.newTimeout(Runnable {
+            if (scrubSeekInFlight) {
+                onScrubSeekSettled()
+            }
+        }, eventHandler)
+    }
+
+    /**
+     * The amount of time (in milliseconds) before the end of the current item to start
+     * preloading the next item when the [currentMediaPlayer] is a [PreloadingMediaPlayerApi].
+     * Set to `0` to disable preloading.
+     */
+    var preloadLeadTime = DEFAULT_PRELOAD_LEAD_TIME
+
+    /**
+     * The item that has been preloaded on the [preloadPlayer]
+     */
+    protected var preloadedItem: I? = null
+    protected var preloadPlayer: PreloadingMediaPlayerApi<I>? = null
+    protected val preloadTimeout: TimerWheel.Timeout by lazy {
+        TimerWheel.shared.newTimeout(Runnable { preloadNextItem() }, eventHandler)
+    }
+
+    /**
+     * The amount of time (in milliseconds) the end of the current item and the start of the
+     * next item overlap while the volume of one is faded out and the other faded in.  This
+     * requires a second [MediaPlayerApi] that handles the next item (see [getCrossfadePlayer]).
+     * Set to `0` to disable crossfading.
+     */
+    var crossfadeDuration = 0L
+
+    /**
+     * The amount of time (in milliseconds) between volume changes while crossfading
+     */
+    var crossfadeStep = DEFAULT_CROSSFADE_STEP
+
+    /**
+     * The [MediaPlayerApi] playing the previous item while crossfading to the [currentMediaPlayer]
+     */
+    protected var fadingOutPlayer: MediaPlayerApi<I>? = null
+    protected var crossfadeStartTime = 0L
+    protected val crossfadeTimeout: TimerWheel.Timeout by lazy {
+        TimerWheel.shared.newTimeout(Runnable { startCrossfade() }, eventHandler)
+    }
+
+    protected val crossfadeRampTimeout: TimerWheel.Timeout by lazy {
+        TimerWheel.shared.newTimeout(Runnable { updateCrossfadeVolume() }, eventHandler)
+    }
+
+    /**
+     * When `true` the [MediaPlayerApi] for each [PlaylistItem.mediaType] is cached instead of
+     * asking each of the [mediaPlayers] if they handle every item, and the positions of
+     * playable items are indexed so that runs of unplayable items are only checked once.
+     * This should only be enabled when [MediaPlayerApi.handlesItem] depends only on the
+     * [PlaylistItem.mediaType] and the connection state of remote players.
+     *
+     * The cache is cleared when the [mediaPlayers] or a remote connection state
+     * changes, [invalidateRouting] should be called for any other changes.
+     */
+    var routingCacheEnabled = false
+        set(value) {
+            field = value
+            invalidateRouting()
+        }
+
+    /**
+     * The index in the [mediaPlayers] (or [ROUTE_NONE]) of the player for each media type
+     */
+    protected val routes = SparseIntArray()
+
+    /**
+     * The [mediaPlayers] the [routes] were cached for
+     */
+    protected val routedPlayers = ArrayList<MediaPlayerApi<I>>()
+    protected val playableItemIndex = PlayableItemIndex()
+
+    protected var skipPending = false
+    protected var skipStartPaused = false
+    protected var lastSkipTime = 0L
+
+    /**
+     * `true` when the [currentPlaylistItem] was only skipped to and hasn't been played, so
+     * its playback shouldn't be reported as ended
+     */
+    protected var skipDisplayingItem = false
+    protected val settledSkipRunnable = Runnable {
+        if (skipPending) {
+            skipPending = false
+            startItemPlayback(0, skipStartPaused)
+        }
+    }
+
     init {
         audioFocusProvider.setPlaylistHandler(this)
     }
@@ -114,132 +401,803 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         this.serviceCallbacks = serviceCallbacks
 
         mediaProgressPoll.progressListener = this
+        mediaProgressPoll.stateMirror = playerStateMirror
         playlistManager.playlistHandler = this
+        updateProgressPolling()
+    }
+
+    override fun tearDown() {
+        if (postToActor { tearDown() }) {
+            actor?.quit()
+            return
+        }
+
+        setPlaybackState(PlaybackState.STOPPED)
+
+        relaxResources()
+        playlistManager.playlistHandler = null
+
+        mediaInfo.clear()
+    }
+
+    /**
+     * Posts the [command] to the [actor] when running in actor mode and not already
+     * on the actor's thread.  This should be checked at the start of each command and
+     * player event so that the handler state is only accessed from a single thread.
+     *
+     * @return `true` if the [command] was posted and shouldn't be performed on the calling thread
+     */
+    protected fun postToActor(command: () -> Unit): Boolean {
+        val actor = actor ?: return false
+        if (actor.isCurrentThread) {
+            return false
+        }
+
+        if (!actor.post(Runnable(command))) {
+            Log.d(TAG, "Ignoring command because the actor has already been quit")
+        }
+
+        return true
+    }
+
+    override fun play() {
+        if (postToActor { play() }) {
+            return
+        }
+
+        if (!isPlaying) {
+            currentMediaPlayer?.play()
+            mirroredState.onPlay()
+        }
+
+        mediaProgressPoll.start()
+        setPlaybackState(PlaybackState.PLAYING)
+
+        setupForeground()
+        audioFocusProvider.requestFocus()
+        scheduleCrossfade()
+        schedulePreload()
+    }
+
+    override fun pause(transient: Boolean) {
+        if (postToActor { pause(transient) }) {
+            return
+        }
+
+        cancelCrossfade()
+
+        if (isPlaying) {
+            currentMediaPlayer?.pause()
+            mirroredState.onPause()
+        }
+
+        mediaProgressPoll.stop()
+        preloadTimeout.cancel()
+        setPlaybackState(PlaybackState.PAUSED)
+        serviceCallbacks.endForeground(false)
+
+        if (!transient) {
+            audioFocusProvider.abandonFocus()
+        }
+    }
+
+    override fun togglePlayPause() {
+        if (postToActor { togglePlayPause() }) {
+            return
+        }
+
+        if (isPlaying) {
+            pause(false)
+        } else {
+            play()
+        }
+    }
+
+    override fun stop() {
+        if (postToActor { stop() }) {
+            return
+        }
+
+        currentMediaPlayer?.stop()
+        mirroredState.invalidate()
+
+        setPlaybackState(PlaybackState.STOPPED)
+        currentPlaylistItem?.let {
+            notifyItemPlaybackEnded(it)
+        }
+
+        // let go of all resources
+        relaxResources()
+
+        playlistManager.reset()
+        serviceStopping = true
+        serviceCallbacks.stop()
+    }
+
+    /**
+     * Moves to the next item.  When the [skipSettleWindow] is enabled, rapid calls after
+     * the first are combined so that only the final item is prepared (see [skip])
+     */
+    override fun next() {
+        if (postToActor { next() }) {
+            return
+        }
+
+        if (skipSettleWindow > 0) {
+            skip(true)
+        } else {
+            performNext()
+        }
+    }
+
+    /**
+     * Moves to the previous item.  When the [skipSettleWindow] is enabled, rapid calls after
+     * the first are combined so that only the final item is prepared (see [skip])
+     */
+    override fun previous() {
+        if (postToActor { previous() }) {
+            return
+        }
+
+        if (skipSettleWindow > 0) {
+            skip(false)
+        } else {
+            performPrevious()
+        }
+    }
+
+    /**
+     * Immediately moves to and starts playback of the next item.  This is used
+     * for automatic transitions (e.g. completion, errors) that shouldn't be delayed.
+     */
+    protected open fun performNext() {
+        cancelPendingSkip()
+        playlistManager.next()
+        startItemPlayback(0, !isPlaying)
+    }
+
+    /**
+     * Immediately moves to and starts playback of the previous item
+     */
+    protected open fun performPrevious() {
+        cancelPendingSkip()
+        playlistManager.previous()
+        startItemPlayback(0, !isPlaying)
+    }
+
+    /**
+     * Moves the [playlistManager] to the next or previous item.  A skip outside of the
+     * [skipSettleWindow] of the last one is prepared immediately; otherwise the item isn't
+     * prepared until no other skips have been requested for the [skipSettleWindow].  The
+     * listeners, media controls, and notification are still informed of each intermediate
+     * item so that they stay responsive.
+     *
+     * @param forward `true` to move to the next item, `false` for the previous item
+     */
+    protected open fun skip(forward: Boolean) {
+        val now = SystemClock.elapsedRealtime()
+        val settling = skipPending || now - lastSkipTime < skipSettleWindow
+        lastSkipTime = now
+
+        if (!settling) {
+            // An item that is still loading keeps its requested paused state
+            val paused = if (isLoading) startPaused else !isPlaying
+            if (forward) playlistManager.next() else playlistManager.previous()
+            startItemPlayback(0, paused)
+            return
+        }
+
+        if (!skipPending) {
+            skipPending = true
+            // An item that is still loading keeps its requested paused state
+            skipStartPaused = if (isLoading) startPaused else !isPlaying
+
+            // Makes sure the previous item doesn't continue playing while the skips settle
+            if (isPlaying) {
+                currentMediaPlayer?.pause()
+                mirroredState.onPause()
+            }
+
+            mediaProgressPoll.stop()
+            cancelPreparingRequest()
+            clearPreload()
+            cancelCrossfade()
+
+            if (!skipDisplayingItem) {
+                notifyItemPlaybackEnded(currentPlaylistItem)
+            }
+        }
+
+        if (forward) playlistManager.next() else playlistManager.previous()
+
+        // Displays the skipped to item (e.g. in the notification) until it is prepared
+        skipDisplayingItem = true
+        currentPlaylistItem = playlistManager.currentItem
+        mediaItemChanged(currentPlaylistItem)
+
+        setPlaybackState(PlaybackState.RETRIEVING)
+
+        eventHandler.removeCallbacks(settledSkipRunnable)
+        eventHandler.postDelayed(settledSkipRunnable, skipSettleWindow)
+    }
+
+    /**
+     * Cancels the playback of a pending [skip], the [playlistManager] will
+     * still represent the skipped to item
+     */
+    protected open fun cancelPendingSkip() {
+        if (skipPending) {
+            skipPending = false
+            eventHandler.removeCallbacks(settledSkipRunnable)
+        }
+    }
+
+    override fun startSeek() {
+        if (postToActor { startSeek() }) {
+            return
+        }
+
+        if (isPlaying) {
+            pausedForSeek = true
+            pause(true)
+        }
+    }
+
+    override fun seek(positionMillis: Long) {
+        if (postToActor { seek(positionMillis) }) {
+            return
+        }
+
+        if (!scrubbing && !scrubSeekInFlight) {
+            performSeek(positionMillis)
+            return
+        }
+
+        // Ends the scrub, applying the final position once the in-flight seek has completed
+        scrubbing = false
+        pendingScrubPosition = NO_SCRUB_POSITION
+        finalScrubPosition = positionMillis
+        if (scrubSeekInFlight) {
+            scrubTimeout.schedule(Math.max(0, lastScrubSeekTime + scrubDebounce - SystemClock.elapsedRealtime()))
+        } else {
+            scrubTimeout.cancel()
+            applyFinalScrubPosition()
+        }
+    }
+
+    /**
+     * Seeks to the [positionMillis] while the user is scrubbing.  Only the most recent
+     * position is kept, and it is only sought to once the previous seek has completed
+     * or the [scrubDebounce] has elapsed.
+     */
+    override fun scrub(positionMillis: Long) {
+        if (postToActor { scrub(positionMillis) }) {
+            return
+        }
+
+        scrubbing = true
+        pendingScrubPosition = positionMillis
+
+        if (!scrubSeekInFlight) {
+            performScrubSeek()
+        } else if (!scrubTimeout.isScheduled) {
+            scrubTimeout.schedule(Math.max(0, lastScrubSeekTime + scrubDebounce - SystemClock.elapsedRealtime()))
+        }
+    }
+
+    /**
+     * Seeks to the [pendingScrubPosition] without modifying the playback state
+     */
+    protected open fun performScrubSeek() {
+        val position = pendingScrubPosition
+        if (position == NO_SCRUB_POSITION) {
+            return
+        }
+
+        pendingScrubPosition = NO_SCRUB_POSITION
+        scrubSeekInFlight = true
+        lastScrubSeekTime = SystemClock.elapsedRealtime()
+
+        seekCurrentMediaPlayer(position)
+        scrubTimeout.schedule(scrubDebounce)
+    }
+
+    /**
+     * Called when the previous scrub seek has completed, or the [scrubDebounce] has elapsed
+     * without it completing, to perform the next pending seek
+     */
+    protected open fun onScrubSeekSettled() {
+        scrubSeekInFlight = false
+        scrubTimeout.cancel()
+
+        if (finalScrubPosition != NO_SCRUB_POSITION) {
+            applyFinalScrubPosition()
+        } else {
+            performScrubSeek()
+        }
+    }
+
+    /**
+     * Performs the seek to the position the scrub ended at, restoring the
+     * playback state as with a normal seek
+     */
+    protected open fun applyFinalScrubPosition() {
+        val position = finalScrubPosition
+        finalScrubPosition = NO_SCRUB_POSITION
+        if (position != NO_SCRUB_POSITION) {
+            performSeek(position)
+        }
+    }
+
+    override fun onPrepared(mediaPlayer: MediaPlayerApi<I>) {
+        if (postToActor { onPrepared(mediaPlayer) }) {
+            return
+        }
+
+        if (isStaleCallback(mediaPlayer, "onPrepared")) {
+            return
+        }
+
+        awaitingPrepare = false
+        mirroredState.invalidate()
+        startMediaPlayer(mediaPlayer)
+        sequentialErrors = 0
     }
 
-    override fun tearDown() {
-        setPlaybackState(PlaybackState.STOPPED)
+    override fun onBufferingUpdate(mediaPlayer: MediaPlayerApi<I>, percent: Int) {
+        if (postToActor { onBufferingUpdate(mediaPlayer, percent) }) {
+            return
+        }
+
+        if (mediaPlayer !== currentMediaPlayer) {
+            return
+        }
+
+        //Makes sure to update listeners of buffer updates even when playback is paused
+        val state = mirroredState
+        state.onBufferingUpdate(percent)
+        if (!state.isPlaying && currentMediaProgress.bufferPercent != percent) {
+            currentMediaProgress.update(state.currentPosition, percent, state.duration)
+            onProgressUpdated(currentMediaProgress)
+        }
+    }
+
+    override fun onPrepared(mediaPlayer: MediaPlayerApi<I>, requestGeneration: Long) {
+        if (postToActor { onPrepared(mediaPlayer, requestGeneration) }) {
+            return
+        }
+
+        if (isStaleRequest(requestGeneration, playbackGeneration, "onPrepared")) {
+            return
+        }
+
+        onPrepared(mediaPlayer)
+    }
+
+    override fun onSeekComplete(mediaPlayer: MediaPlayerApi<I>, requestGeneration: Long) {
+        if (postToActor { onSeekComplete(mediaPlayer, requestGeneration) }) {
+            return
+        }
+
+        if (isStaleRequest(requestGeneration, seekGeneration, "onSeekComplete")) {
+            return
+        }
+
+        onSeekComplete(mediaPlayer)
+    }
+
+    override fun onCompletion(mediaPlayer: MediaPlayerApi<I>, requestGeneration: Long) {
+        if (postToActor { onCompletion(mediaPlayer, requestGeneration) }) {
+            return
+        }
+
+        if (isStaleRequest(requestGeneration, playbackGeneration, "onCompletion")) {
+            return
+        }
+
+        onCompletion(mediaPlayer)
+    }
+
+    override fun onSeekComplete(mediaPlayer: MediaPlayerApi<I>) {
+        if (postToActor { onSeekComplete(mediaPlayer) }) {
+            return
+        }
+
+        if (isStaleCallback(mediaPlayer, "onSeekComplete")) {
+            return
+        }
+
+        if (scrubSeekInFlight) {
+            onScrubSeekSettled()
+            return
+        }
+
+        // A late completion for a scrub seek shouldn't restore the playback state while still scrubbing
+        if (scrubbing) {
+            return
+        }
+
+        mirroredState.invalidate()
+        if (pausedForSeek || playingBeforeSeek) {
+            play()
+            pausedForSeek = false
+            playingBeforeSeek = false
+        } else {
+            pause(false)
+        }
+    }
+
+    override fun onCompletion(mediaPlayer: MediaPlayerApi<I>) {
+        if (postToActor { onCompletion(mediaPlayer) }) {
+            return
+        }
+
+        if (isStaleCallback(mediaPlayer, "onCompletion")) {
+            return
+        }
+
+        mirroredState.invalidate()
+
+        // Restarts the current item when repeating it, otherwise moves to the next playable item
+        if (playlistManager.repeatMode == RepeatMode.ONE) {
+            startItemPlayback(0, false)
+            return
+        }
+
+        if (startPreloadedItemPlayback()) {
+            return
+        }
+
+        performNext()
+        startPaused = false
+    }
+
+    override fun onError(mediaPlayer: MediaPlayerApi<I>): Boolean {
+        if (postToActor { onError(mediaPlayer) }) {
+            return false
+        }
+
+        if (isStaleCallback(mediaPlayer, "onError")) {
+            return false
+        }
+
+        awaitingPrepare = false
+        mirroredState.invalidate()
+
+        // Unless we've had 3 or more errors without an item successfully playing we will move to the next item
+        if (++sequentialErrors <= 3) {
+            performNext()
+            return false
+        }
+
+        setPlaybackState(PlaybackState.ERROR)
+        mediaControlsUpdateScheduler.cancel()
+
+        serviceCallbacks.endForeground(true)
+        wifiLock.release()
+        mediaProgressPoll.stop()
+
+        audioFocusProvider.abandonFocus()
+        return false
+    }
+
+    override fun onProgressSubscribersChanged() {
+        updateProgressPolling()
+    }
+
+    override fun onPlaylistChanged() {
+        if (postToActor { onPlaylistChanged() }) {
+            return
+        }
+
+        playableItemIndex.invalidate()
+
+        // The next item may have changed, so the preload is re-created when it's due
+        if (preloadedItem != null) {
+            clearPreload()
+            if (isPlaying) {
+                schedulePreload()
+            }
+        }
+    }
+
+    /**
+     * Schedules the [preloadNextItem] for the [preloadLeadTime] before the end of the
+     * current item, when the [currentMediaPlayer] supports preloading
+     */
+    protected open fun schedulePreload() {
+        // Crossfading prepares the next item on another player so preloading it isn't needed
+        if (preloadLeadTime <= 0 || crossfadeDuration > 0 || currentMediaPlayer !is PreloadingMediaPlayerApi<*>) {
+            return
+        }
+
+        val state = mirroredState
+        val duration = state.duration
+        if (duration <= 0) {
+            return
+        }
+
+        preloadTimeout.schedule(Math.max(0, duration - state.currentPosition - preloadLeadTime))
+    }
+
+    /**
+     * Preloads the item the [playlistManager] will move to once the current item
+     * completes, as long as it will be played by the [currentMediaPlayer]
+     */
+    protected open fun preloadNextItem() {
+        if (preloadLeadTime <= 0 || playlistManager.repeatMode == RepeatMode.ONE) {
+            return
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        val player = currentMediaPlayer as? PreloadingMediaPlayerApi<I> ?: return
+        val item = playlistManager.peekNext() ?: return
+        if (item === preloadedItem || findMediaPlayerForItem(item) !== player) {
+            return
+        }
+
+        player.preloadItem(item)
+        preloadedItem = item
+        preloadPlayer = player
+    }
+
+    /**
+     * Discards the [preloadedItem], this is cheap enough to call whenever the
+     * next item may have changed (e.g. skips and playlist changes)
+     */
+    protected open fun clearPreload() {
+        preloadTimeout.cancel()
+        preloadPlayer?.clearPreload()
+        preloadPlayer = null
+        preloadedItem = null
+    }
+
+    /**
+     * Schedules the [startCrossfade] for the [crossfadeDuration] before the end of the current item
+     */
+    protected open fun scheduleCrossfade() {
+        if (crossfadeDuration <= 0 || fadingOutPlayer != null) {
+            return
+        }
+
+        val state = mirroredState
+        val duration = state.duration
+        if (duration <= 0) {
+            return
+        }
+
+        crossfadeTimeout.schedule(Math.max(0, duration - state.currentPosition - crossfadeDuration))
+    }
+
+    /**
+     * Retrieves the [MediaPlayerApi] to fade the [item] in with, this must not be the
+     * [currentMediaPlayer] because it continues playing while the [item] is faded in
+     *
+     * @return The [MediaPlayerApi] to play the [item] with or `null` if none are available
+     */
+    protected open fun getCrossfadePlayer(item: I): MediaPlayerApi<I>? {
+        val current = currentMediaPlayer
+        return mediaPlayers.firstOrNull { it !== current && it.handlesItem(item) } ?: mediaPlayerPool?.acquire(item)
+    }
+
+    /**
+     * Starts playback of the next item on the [getCrossfadePlayer] while the current
+     * item continues playing.  The [currentMediaPlayer] is switched to the incoming player
+     * immediately so that audio focus and progress follow the next item, the volumes are
+     * ramped once it has been prepared (see [startMediaPlayer]).
+     */
+    protected open fun startCrossfade() {
+        val outgoing = currentMediaPlayer ?: return
+        if (!isPlaying || fadingOutPlayer != null || playlistManager.repeatMode == RepeatMode.ONE) {
+            return
+        }
+
+        val item = playlistManager.peekNext() ?: return
+        val incoming = getCrossfadePlayer(item) ?: return
+
+        clearPreload()
+        cancelPendingSkip()
+        playlistManager.next()
+
+        fadingOutPlayer = outgoing
+        crossfadeStartTime = 0
+        listener?.onMediaPlayerChanged(outgoing, incoming)
+        currentMediaPlayer = incoming
+        playerStateMirror.attach(incoming)
 
-        relaxResources()
-        playlistManager.playlistHandler = null
+        seekToPosition = -1
+        startPaused = false
+        notifyItemPlaybackEnded(currentPlaylistItem)
+        currentPlaylistItem = item
+        mediaItemChanged(item)
 
-        mediaInfo.clear()
+        if (!play(incoming, item)) {
+            cancelCrossfade()
+            startItemPlayback(0, false)
+            return
+        }
+
+        incoming.setVolume(0F, 0F)
     }
 
-    override fun play() {
-        if (!isPlaying) {
-            currentMediaPlayer?.play()
+    /**
+     * Starts ramping the volumes of the [fadingOutPlayer] and [currentMediaPlayer]
+     */
+    protected open fun startCrossfadeRamp() {
+        if (fadingOutPlayer == null || crossfadeStartTime != 0L) {
+            return
         }
 
-        mediaProgressPoll.start()
-        setPlaybackState(PlaybackState.PLAYING)
-
-        setupForeground()
-        audioFocusProvider.requestFocus()
+        crossfadeStartTime = SystemClock.elapsedRealtime()
+        updateCrossfadeVolume()
+        crossfadeRampTimeout.scheduleAtFixedRate(crossfadeStep, Math.max(1, crossfadeStep))
     }
 
-    override fun pause(transient: Boolean) {
-        if (isPlaying) {
-            currentMediaPlayer?.pause()
+    /**
+     * Updates the volumes for the current point in the crossfade.  The volumes are
+     * determined by the elapsed time instead of the number of steps so that late
+     * steps don't extend the crossfade.
+     */
+    protected open fun updateCrossfadeVolume() {
+        val outgoing = fadingOutPlayer ?: return
+        val elapsed = SystemClock.elapsedRealtime() - crossfadeStartTime
+        val fraction = if (crossfadeDuration <= 0) 1.0 else Math.min(1.0, elapsed.toDouble() / crossfadeDuration)
+        if (fraction >= 1.0) {
+            cancelCrossfade()
+
+            // The incoming item was started while the fade was in progress so its own crossfade wasn't scheduled
+            if (isPlaying) {
+                scheduleCrossfade()
+            }
+            return
         }
 
-        mediaProgressPoll.stop()
-        setPlaybackState(PlaybackState.PAUSED)
-        serviceCallbacks.endForeground(false)
+        // An equal power curve keeps the combined loudness constant through the crossfade
+        val incomingVolume = Math.sin(fraction * Math.PI / 2).toFloat()
+        val outgoingVolume = Math.cos(fraction * Math.PI / 2).toFloat()
+        currentMediaPlayer?.setVolume(incomingVolume, incomingVolume)
+        outgoing.setVolume(outgoingVolume, outgoingVolume)
+    }
 
-        if (!transient) {
-            audioFocusProvider.abandonFocus()
-        }
+    /**
+     * Ends any in progress crossfade, stopping the [fadingOutPlayer] and restoring
+     * the volume of the [currentMediaPlayer]
+     */
+    protected open fun cancelCrossfade() {
+        crossfadeTimeout.cancel()
+        val outgoing = fadingOutPlayer ?: return
+
+        crossfadeRampTimeout.cancel()
+        fadingOutPlayer = null
+        crossfadeStartTime = 0
+
+        outgoing.stop()
+        outgoing.setVolume(1F, 1F)
+        currentMediaPlayer?.setVolume(1F, 1F)
+        releasePooledPlayer(outgoing)
     }
 
-    override fun togglePlayPause() {
-        if (isPlaying) {
-            pause(false)
-        } else {
-            play()
+    /**
+     * Moves to the next item, switching the [currentMediaPlayer] to the [preloadedItem]
+     * instead of preparing it when it is still the next item.
+     *
+     * @return `true` if the next item playback was handled
+     */
+    protected open fun startPreloadedItemPlayback(): Boolean {
+        val item = preloadedItem
+        val player = preloadPlayer
+        preloadedItem = null
+        preloadPlayer = null
+        preloadTimeout.cancel()
+
+        if (item == null || player == null) {
+            return false
         }
-    }
 
-    override fun stop() {
-        currentMediaPlayer?.stop()
+        if (player !== currentMediaPlayer || playlistManager.peekNext() !== item) {
+            player.clearPreload()
+            return false
+        }
 
-        setPlaybackState(PlaybackState.STOPPED)
-        currentPlaylistItem?.let {
-            playlistManager.playbackStatusListener?.onItemPlaybackEnded(it)
+        cancelPendingSkip()
+        playlistManager.next()
+        if (!player.playPreloadedItem(item)) {
+            startItemPlayback(0, false)
+            return true
         }
 
-        // let go of all resources
-        relaxResources()
+        // The preloaded item is already prepared so playback continues as if it had been
+        serviceStopping = false
+        seekToPosition = -1
+        startPaused = false
+        notifyItemPlaybackEnded(currentPlaylistItem)
+        currentPlaylistItem = item
+        mediaItemChanged(item)
 
-        playlistManager.reset()
-        serviceCallbacks.stop()
-    }
+        awaitingPrepare = false
+        pausedForSeek = false
+        sequentialErrors = 0
+        mirroredState.invalidate()
+        mediaProgressPoll.reset()
 
-    override fun next() {
-        playlistManager.next()
-        startItemPlayback(0, !isPlaying)
-    }
+        play()
+        notifyMediaPlaybackStarted(item, mirroredState.currentPosition, mirroredState.duration)
 
-    override fun previous() {
-        playlistManager.previous()
-        startItemPlayback(0, !isPlaying)
+        wifiLock.update(!item.downloaded)
+        return true
     }
 
-    override fun startSeek() {
-        if (isPlaying) {
-            pausedForSeek = true
-            pause(true)
+    /**
+     * Updates the rate of the [mediaProgressPoll] to match the fastest interval
+     * requested by the [ProgressListener]s registered with the [playlistManager],
+     * disabling the polling when there aren't any listeners
+     */
+    protected open fun updateProgressPolling() {
+        if (postToActor { updateProgressPolling() }) {
+            return
         }
-    }
 
-    override fun seek(positionMillis: Long) {
-        performSeek(positionMillis)
-    }
+        val requestedInterval = playlistManager.requestedProgressInterval
+        if (requestedInterval == ProgressListenerRegistry.NO_INTERVAL) {
+            mediaProgressPoll.pollingEnabled = false
+            return
+        }
 
-    override fun onPrepared(mediaPlayer: MediaPlayerApi<I>) {
-        startMediaPlayer(mediaPlayer)
-        sequentialErrors = 0
+        val interval = if (requestedInterval == ProgressListenerRegistry.DEFAULT_INTERVAL) progressPollDelay.toLong() else requestedInterval
+        val pollDelay = Math.max(1, Math.min(interval, Int.MAX_VALUE.toLong())).toInt()
+        playlistManager.progressPollInterval = pollDelay.toLong()
+        mediaProgressPoll.setProgressPollDelay(pollDelay)
+        mediaProgressPoll.pollingEnabled = true
     }
 
-    override fun onBufferingUpdate(mediaPlayer: MediaPlayerApi<I>, percent: Int) {
-        //Makes sure to update listeners of buffer updates even when playback is paused
-        if (!mediaPlayer.isPlaying && currentMediaProgress.bufferPercent != percent) {
-            currentMediaProgress.update(mediaPlayer.currentPosition, percent, mediaPlayer.duration)
-            onProgressUpdated(currentMediaProgress)
+    /**
+     * Informs the [requestedPlayer] that the item it is preparing is no longer needed,
+     * making sure any callbacks that still arrive for the request are ignored.  Players
+     * that don't support cancelling requests are stopped instead.
+     */
+    protected open fun cancelPreparingRequest() {
+        if (!awaitingPrepare) {
+            return
         }
-    }
 
-    override fun onSeekComplete(mediaPlayer: MediaPlayerApi<I>) {
-        if (pausedForSeek || playingBeforeSeek) {
-            play()
-            pausedForSeek = false
-            playingBeforeSeek = false
+        awaitingPrepare = false
+        val player = requestedPlayer ?: return
+        if (player is RequestAwareMediaPlayerApi<I>) {
+            player.cancelRequest(playbackGeneration)
+            playbackGeneration++
         } else {
-            pause(false)
+            player.stop()
         }
-    }
 
-    override fun onCompletion(mediaPlayer: MediaPlayerApi<I>) {
-        // Handles moving to the next playable item
-        next()
-        startPaused = false
+        if (player === currentMediaPlayer) {
+            mirroredState.invalidate()
+        }
     }
 
-    override fun onError(mediaPlayer: MediaPlayerApi<I>): Boolean {
-        // Unless we've had 3 or more errors without an item successfully playing we will move to the next item
-        if (++sequentialErrors <= 3) {
-            next()
+    /**
+     * Determines if a callback from the [mediaPlayer] is stale because it isn't
+     * the [currentMediaPlayer]
+     */
+    protected open fun isStaleCallback(mediaPlayer: MediaPlayerApi<I>, callback: String): Boolean {
+        if (mediaPlayer === currentMediaPlayer) {
             return false
         }
 
-        setPlaybackState(PlaybackState.ERROR)
+        Log.d(TAG, "Ignoring $callback from $mediaPlayer because it isn't the current MediaPlayer")
+        return true
+    }
 
-        serviceCallbacks.endForeground(true)
-        wifiLock.release()
-        mediaProgressPoll.stop()
+    /**
+     * Determines if a callback for the [requestGeneration] is stale because a
+     * newer request (the [currentGeneration]) has been made
+     */
+    protected open fun isStaleRequest(requestGeneration: Long, currentGeneration: Long, callback: String): Boolean {
+        if (requestGeneration == currentGeneration) {
+            return false
+        }
 
-        audioFocusProvider.abandonFocus()
-        return false
+        Log.d(TAG, "Ignoring $callback for stale request $requestGeneration, the current request is $currentGeneration")
+        return true
     }
 
     /**
@@ -248,10 +1206,23 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
      */
     override fun onProgressUpdated(mediaProgress: MediaProgress): Boolean {
         currentMediaProgress = mediaProgress
-        return playlistManager.onProgressUpdated(mediaProgress)
+        val handler = listenerHandler ?: return playlistManager.onProgressUpdated(mediaProgress)
+
+        // Progress that hasn't been delivered yet is replaced instead of queueing every update
+        synchronized(pendingListenerProgress) {
+            pendingListenerProgress.update(mediaProgress.position, mediaProgress.bufferPercent, mediaProgress.duration, mediaProgress.timestamp)
+            if (!listenerProgressPending) {
+                listenerProgressPending = true
+                handler.post(listenerProgressRunnable)
+            }
+        }
+
+        return false
     }
 
     protected open fun setupForeground() {
+        // The foreground notification isn't coalesced so the information needs to be current
+        updateMediaInfo()
         serviceCallbacks.runAsForeground(notificationId, notificationProvider.buildNotification(mediaInfo, mediaSessionProvider.get(), serviceClass))
     }
 
@@ -267,19 +1238,50 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
      */
     protected open fun performSeek(position: Long, updatePlaybackState: Boolean = true) {
         playingBeforeSeek = isPlaying
-        currentMediaPlayer?.seekTo(position)
+        seekCurrentMediaPlayer(position)
 
         if (updatePlaybackState) {
             setPlaybackState(PlaybackState.SEEKING)
         }
     }
 
+    /**
+     * Requests the [currentMediaPlayer] seek to the [position] with a new [seekGeneration]
+     */
+    protected open fun seekCurrentMediaPlayer(position: Long) {
+        seekGeneration++
+        currentMediaPlayer?.let {
+            if (it is RequestAwareMediaPlayerApi<I>) {
+                it.seekTo(position, seekGeneration)
+            } else {
+                it.seekTo(position)
+            }
+        }
+
+        mirroredState.onSeek(position)
+    }
+
+    /**
+     * Clears any in progress scrub without applying its positions
+     */
+    protected open fun cancelScrub() {
+        scrubTimeout.cancel()
+        scrubbing = false
+        scrubSeekInFlight = false
+        pendingScrubPosition = NO_SCRUB_POSITION
+        finalScrubPosition = NO_SCRUB_POSITION
+    }
+
     protected open fun initializeMediaPlayer(mediaPlayer: MediaPlayerApi<I>) {
         mediaPlayer.apply {
             reset()
             setMediaStatusListener(this@DefaultPlaylistHandler)
         }
 
+        if (mediaPlayer === currentMediaPlayer) {
+            mirroredState.invalidate()
+        }
+
         mediaProgressPoll.update(mediaPlayer)
         mediaProgressPoll.reset()
     }
@@ -291,6 +1293,11 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         mediaInfo.mediaState.isNextEnabled = playlistManager.isNextAvailable
         mediaInfo.mediaState.isPreviousEnabled = playlistManager.isPreviousAvailable
 
+        // The position is only updated with the media controls (e.g. on seek, pause, and item changes) since the system extrapolates it
+        mediaInfo.mediaState.position = if (skipDisplayingItem) 0 else currentMediaPlayer?.let { mirroredState.currentPosition } ?: MediaInfo.POSITION_UNKNOWN
+        mediaInfo.mediaState.positionUpdateTime = SystemClock.elapsedRealtime()
+        mediaInfo.mediaState.playbackSpeed = if (isPlaying) playbackSpeed else 0F
+
         // Updates the notification information
         mediaInfo.notificationId = notificationId
         mediaInfo.playlistItem = currentPlaylistItem
@@ -300,7 +1307,27 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         mediaInfo.largeNotificationIcon = imageProvider.largeNotificationImage
     }
 
+    /**
+     * Requests an update of the media session, media controls, and notification.  Updates
+     * are coalesced so that bursts of requests result in at most one update per
+     * [mediaControlsUpdateWindow], with the final state always being pushed.
+     */
     override fun updateMediaControls() {
+        if (postToActor { updateMediaControls() }) {
+            return
+        }
+
+        if (currentPlaylistItem == null) {
+            return
+        }
+
+        mediaControlsUpdateScheduler.schedule()
+    }
+
+    /**
+     * Performs the actual update of the media session, media controls, and notification
+     */
+    protected open fun performMediaControlsUpdate() {
         if (currentPlaylistItem == null) {
             return
         }
@@ -314,7 +1341,11 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
     }
 
     override fun refreshCurrentMediaPlayer() {
-        refreshCurrentMediaPlayer(currentMediaPlayer?.currentPosition ?: seekToPosition, !isPlaying)
+        if (postToActor { refreshCurrentMediaPlayer() }) {
+            return
+        }
+
+        refreshCurrentMediaPlayer(currentMediaPlayer?.let { mirroredState.currentPosition } ?: seekToPosition, !isPlaying)
     }
 
     protected open fun refreshCurrentMediaPlayer(seekPosition: Long, startPaused: Boolean) {
@@ -324,15 +1355,22 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
 
             updateCurrentMediaPlayer(it)
             if (!play(currentMediaPlayer, it)) {
-                next()
+                performNext()
             }
         }
     }
 
     override fun onRemoteMediaPlayerConnectionChange(mediaPlayer: MediaPlayerApi<I>, state: MediaPlayerApi.RemoteConnectionState) {
+        if (postToActor { onRemoteMediaPlayerConnectionChange(mediaPlayer, state) }) {
+            return
+        }
+
+        // The players handling each media type may change with the connection
+        invalidateRouting()
+
         // If the mediaPlayer that changed state is of lower priority than the current one we ignore the change
         currentMediaPlayer?.let {
-            if (mediaPlayers.indexOf(it) < mediaPlayers.indexOf(mediaPlayer)) {
+            if (getPriority(it) < getPriority(mediaPlayer)) {
                 Log.d(TAG, "Ignoring remote connection state change for $mediaPlayer because it is of lower priority than the current MediaPlayer")
                 return
             }
@@ -343,19 +1381,19 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
                 if (mediaPlayer != currentMediaPlayer) {
                     val resumePlayback = isPlaying
                     pause(true)
-                    seekToPosition = currentMediaPlayer?.currentPosition ?: seekToPosition
+                    seekToPosition = currentMediaPlayer?.let { mirroredState.currentPosition } ?: seekToPosition
                     startPaused = !resumePlayback
                 }
                 return
             }
             MediaPlayerApi.RemoteConnectionState.CONNECTED -> {
                 if (mediaPlayer != currentMediaPlayer) {
-                    refreshCurrentMediaPlayer(currentMediaProgress.position, startPaused)
+                    refreshCurrentMediaPlayer(mirroredState.lastKnownPosition, startPaused)
                 }
             }
             MediaPlayerApi.RemoteConnectionState.NOT_CONNECTED -> {
                 if (mediaPlayer == currentMediaPlayer) {
-                    refreshCurrentMediaPlayer(currentMediaProgress.position, startPaused)
+                    refreshCurrentMediaPlayer(mirroredState.lastKnownPosition, startPaused)
                 }
             }
         }
@@ -366,8 +1404,16 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
      * status and notification, the wake locks, and the audioPlayer if requested
      */
     protected open fun relaxResources() {
+        cancelScrub()
+        cancelPendingSkip()
+        cancelPreparingRequest()
+        clearPreload()
+        cancelCrossfade()
+        mediaControlsUpdateScheduler.cancel()
         mediaProgressPoll.release()
+        currentMediaPlayer?.let { releasePooledPlayer(it) }
         currentMediaPlayer = null
+        playerStateMirror.attach(null)
 
         audioFocusProvider.abandonFocus()
         wifiLock.release()
@@ -378,10 +1424,22 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
     }
 
     override fun startItemPlayback(positionMillis: Long, startPaused: Boolean) {
+        if (postToActor { startItemPlayback(positionMillis, startPaused) }) {
+            return
+        }
+
+        serviceStopping = false
+        cancelPendingSkip()
+        clearPreload()
+        cancelCrossfade()
         this.seekToPosition = positionMillis
         this.startPaused = startPaused
 
-        playlistManager.playbackStatusListener?.onItemPlaybackEnded(currentPlaylistItem)
+        if (!skipDisplayingItem) {
+            notifyItemPlaybackEnded(currentPlaylistItem)
+        }
+
+        skipDisplayingItem = false
         currentPlaylistItem = getNextPlayableItem()
 
         currentPlaylistItem.let {
@@ -394,15 +1452,16 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         }
 
         //If the playback wasn't handled, attempt to seek to the next playable item, otherwise stop the service
-        if (playlistManager.isNextAvailable) {
-            next()
+        if (currentPlaylistItem != null && playlistManager.isNextAvailable) {
+            performNext()
         } else {
             stop()
         }
     }
 
     protected open fun updateCurrentMediaPlayer(item: I?) {
-        if (mediaPlayers.isEmpty()) {
+        // Pooled players are created when they are first needed so an empty list is expected when using a pool
+        if (mediaPlayers.isEmpty() && mediaPlayerPool == null) {
             Log.d(TAG, "No media players available, stopping service")
             stop()
         }
@@ -410,15 +1469,107 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         val newMediaPlayer = item?.let { getMediaPlayerForItem(it) }
         if (newMediaPlayer != currentMediaPlayer) {
             listener?.onMediaPlayerChanged(currentMediaPlayer, newMediaPlayer)
-            currentMediaPlayer?.stop()
+            currentMediaPlayer?.let {
+                it.stop()
+                releasePooledPlayer(it)
+            }
         }
 
         currentMediaPlayer = newMediaPlayer
+        playerStateMirror.attach(newMediaPlayer)
     }
 
+    /**
+     * Retrieves the [MediaPlayerApi] to play the [item] with, acquiring one from the
+     * [mediaPlayerPool] when none of the [mediaPlayers] handle it
+     */
     protected open fun getMediaPlayerForItem(item: I): MediaPlayerApi<I>? {
+        return findMediaPlayerForItem(item) ?: mediaPlayerPool?.acquire(item)
+    }
+
+    /**
+     * Finds the [MediaPlayerApi] to play the [item] with without acquiring one from the
+     * [mediaPlayerPool], the [currentMediaPlayer] is used when it's a pooled player that
+     * handles the [item]
+     */
+    protected open fun findMediaPlayerForItem(item: I): MediaPlayerApi<I>? {
         // We prioritize players higher in the list over the currentMediaPlayer
-        return mediaPlayers.firstOrNull { it.handlesItem(item) }
+        routeItem(item)?.let {
+            return it
+        }
+
+        return currentMediaPlayer?.takeIf { mediaPlayerPool?.owns(it) == true && it.handlesItem(item) }
+    }
+
+    /**
+     * Determines if there is a [MediaPlayerApi] that can play the [item]
+     */
+    protected open fun isPlayable(item: I): Boolean {
+        return routeItem(item) != null || mediaPlayerPool?.supports(item) == true
+    }
+
+    /**
+     * Finds the first of the [mediaPlayers] that handles the [item], using the
+     * cached route for the [PlaylistItem.mediaType] when the [routingCacheEnabled]
+     */
+    protected open fun routeItem(item: I): MediaPlayerApi<I>? {
+        if (!routingCacheEnabled) {
+            return mediaPlayers.firstOrNull { it.handlesItem(item) }
+        }
+
+        validateRoutes()
+        var route = routes.get(item.mediaType, ROUTE_UNKNOWN)
+        if (route == ROUTE_UNKNOWN) {
+            route = mediaPlayers.indexOfFirst { it.handlesItem(item) }.let { if (it >= 0) it else ROUTE_NONE }
+            routes.put(item.mediaType, route)
+        }
+
+        return if (route != ROUTE_NONE) mediaPlayers[route] else null
+    }
+
+    /**
+     * Clears the cached routes and playable item positions, this should be called when
+     * the players that handle an item may have changed (see [routingCacheEnabled])
+     */
+    fun invalidateRouting() {
+        if (postToActor { invalidateRouting() }) {
+            return
+        }
+
+        routes.clear()
+        routedPlayers.clear()
+        routedPlayers.addAll(mediaPlayers)
+        playableItemIndex.invalidate()
+    }
+
+    /**
+     * Makes sure the cached routes were created for the current [mediaPlayers]
+     */
+    protected fun validateRoutes() {
+        if (routedPlayers.size != mediaPlayers.size || routedPlayers.indices.any { routedPlayers[it] !== mediaPlayers[it] }) {
+            invalidateRouting()
+        }
+    }
+
+    /**
+     * Retrieves the priority of the [mediaPlayer], where lower values are preferred.  Pooled
+     * players have the lowest priority since they are only used when none of the [mediaPlayers]
+     * handle an item.
+     */
+    protected fun getPriority(mediaPlayer: MediaPlayerApi<I>): Int {
+        val index = mediaPlayers.indexOf(mediaPlayer)
+        return if (index >= 0) index else Int.MAX_VALUE
+    }
+
+    /**
+     * Returns the [mediaPlayer] to the [mediaPlayerPool] if it was acquired from it
+     */
+    protected open fun releasePooledPlayer(mediaPlayer: MediaPlayerApi<I>) {
+        val pool = mediaPlayerPool ?: return
+        if (pool.owns(mediaPlayer)) {
+            mediaPlayer.stop()
+            pool.release(mediaPlayer)
+        }
     }
 
     /**
@@ -431,10 +1582,22 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
             return false
         }
 
+        // Cancelled before the player is reset since stopping a reset player puts it in an error state
+        cancelPreparingRequest()
+
         initializeMediaPlayer(mediaPlayer)
         audioFocusProvider.requestFocus()
 
-        mediaPlayer.playItem(item)
+        playbackGeneration++
+        requestedPlayer = mediaPlayer
+        awaitingPrepare = true
+        if (seekToPosition > 0 && canPlayItemAtPosition(mediaPlayer)) {
+            playItemAtPosition(mediaPlayer as StartPositionMediaPlayerApi<I>, item, seekToPosition)
+        } else if (mediaPlayer is RequestAwareMediaPlayerApi<I>) {
+            mediaPlayer.playItem(item, playbackGeneration)
+        } else {
+            mediaPlayer.playItem(item)
+        }
 
         setupForeground()
         setPlaybackState(PlaybackState.PREPARING)
@@ -443,6 +1606,36 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         return true
     }
 
+    /**
+     * Determines if the [mediaPlayer] can prepare an item at a position without losing the
+     * generation of the request, which is only possible for a [RequestAwareMediaPlayerApi]
+     * when it is a [RequestAwareStartPositionMediaPlayerApi]
+     */
+    protected open fun canPlayItemAtPosition(mediaPlayer: MediaPlayerApi<I>): Boolean {
+        return when (mediaPlayer) {
+            is RequestAwareStartPositionMediaPlayerApi<I> -> true
+            is RequestAwareMediaPlayerApi<I> -> false
+            else -> mediaPlayer is StartPositionMediaPlayerApi<I>
+        }
+    }
+
+    /**
+     * Requests the [mediaPlayer] prepare the [item] at the [startPosition] instead of
+     * seeking to it once prepared (see [startMediaPlayer])
+     */
+    protected open fun playItemAtPosition(mediaPlayer: StartPositionMediaPlayerApi<I>, item: I, startPosition: Long) {
+        seekToPosition = -1
+        if (mediaPlayer is RequestAwareStartPositionMediaPlayerApi<I>) {
+            mediaPlayer.playItem(item, startPosition, playbackGeneration)
+        } else {
+            mediaPlayer.playItem(item, startPosition)
+        }
+
+        if (mediaPlayer === currentMediaPlayer) {
+            mirroredState.onSeek(startPosition)
+        }
+    }
+
     /**
      * Reconfigures the mediaPlayerApi according to audio focus settings and starts/restarts it. This
      * method starts/restarts the mediaPlayerApi respecting the current audio focus state. So if
@@ -460,15 +1653,18 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
 
         //Start the playback only if requested, otherwise update the state to paused
         mediaProgressPoll.start()
-        if (!mediaPlayer.isPlaying && !startPaused) {
+        if (!isPlaying && !startPaused) {
             pausedForSeek = seekRequested
             play()
-            playlistManager.playbackStatusListener?.onMediaPlaybackStarted(currentPlaylistItem!!, mediaPlayer.currentPosition, mediaPlayer.duration)
+            notifyMediaPlaybackStarted(currentPlaylistItem!!, mirroredState.currentPosition, mirroredState.duration)
         } else {
             setPlaybackState(PlaybackState.PAUSED)
         }
 
         audioFocusProvider.refreshFocus()
+
+        // Started after the focus is refreshed since that restores the volume of the player
+        startCrossfadeRamp()
     }
 
     /**
@@ -477,14 +1673,60 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
      * it will be the next downloaded item.
      */
     protected open fun getNextPlayableItem(): I? {
+        if (routingCacheEnabled && !playlistManager.isShuffleEnabled && playlistManager.currentPosition != BasePlaylistManager.INVALID_POSITION) {
+            return getNextIndexedPlayableItem()
+        }
+
         var item = playlistManager.currentItem
-        while (item != null && getMediaPlayerForItem(item) == null) {
+
+        // Limits the attempts so that repeating playlists without any playable items don't loop forever
+        var remainingAttempts = playlistManager.itemCount
+        while (item != null && !isPlayable(item)) {
             listener?.onItemSkipped(item)
-            item = playlistManager.next()
+            item = if (--remainingAttempts > 0) playlistManager.next() else null
         }
 
         //If we are unable to get a next playable item, inform the listener we are at the end of the playlist
-        item ?: playlistManager.playbackStatusListener?.onPlaylistEnded()
+        item ?: notifyPlaylistEnded()
+        return item
+    }
+
+    /**
+     * Performs the same functionality as [getNextPlayableItem] using the [playableItemIndex] to
+     * jump over unplayable items in the sequential order, instead of moving through them one at a time
+     */
+    protected open fun getNextIndexedPlayableItem(): I? {
+        validateRoutes()
+        val itemCount = playlistManager.itemCount
+        if (playableItemIndex.itemCount != itemCount) {
+            playableItemIndex.reset(itemCount)
+        }
+
+        val isPlayablePosition = { position: Int ->
+            playlistManager.getItem(position)?.let { isPlayable(it) } ?: false
+        }
+
+        val start = playlistManager.currentPosition
+        var position = playableItemIndex.find(start, isPlayablePosition)
+        if (position == PlayableItemIndex.NO_POSITION && playlistManager.repeatMode != RepeatMode.NONE) {
+            position = playableItemIndex.find(0, isPlayablePosition)
+        }
+
+        // The skipped items are only retrieved when there is a listener to inform
+        listener?.let { listener ->
+            val end = if (position == PlayableItemIndex.NO_POSITION || position < start) itemCount else position
+            (start until end).forEach { skipped -> playlistManager.getItem(skipped)?.let { listener.onItemSkipped(it) } }
+            if (position != PlayableItemIndex.NO_POSITION && position < start) {
+                (0 until position).forEach { skipped -> playlistManager.getItem(skipped)?.let { listener.onItemSkipped(it) } }
+            }
+        }
+
+        if (position != start) {
+            playlistManager.currentPosition = position
+        }
+
+        val item = if (position != PlayableItemIndex.NO_POSITION) playlistManager.currentItem else null
+        item ?: notifyPlaylistEnded()
         return item
     }
 
@@ -504,10 +1746,35 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         }
 
         currentItemChange = PlaylistItemChange(item, playlistManager.isPreviousAvailable, playlistManager.isNextAvailable).apply {
-            playlistManager.onPlaylistItemChanged(currentItem, hasNext, hasPrevious)
+            notifyListeners { playlistManager.onPlaylistItemChanged(currentItem, hasNext, hasPrevious) }
+        }
+    }
+
+    /**
+     * Performs the [notification] of the [playlistManager] listeners, posting it to the
+     * main thread when running in actor mode (see [listenerHandler])
+     */
+    protected fun notifyListeners(notification: () -> Unit) {
+        val handler = listenerHandler
+        if (handler == null) {
+            notification()
+        } else {
+            handler.post(notification)
         }
     }
 
+    protected open fun notifyItemPlaybackEnded(item: I?) {
+        notifyListeners { playlistManager.playbackStatusListener?.onItemPlaybackEnded(item) }
+    }
+
+    protected open fun notifyMediaPlaybackStarted(item: I, currentPosition: Long, duration: Long) {
+        notifyListeners { playlistManager.playbackStatusListener?.onMediaPlaybackStarted(item, currentPosition, duration) }
+    }
+
+    protected open fun notifyPlaylistEnded() {
+        notifyListeners { playlistManager.playbackStatusListener?.onPlaylistEnded() }
+    }
+
     /**
      * Updates the current PlaybackState and informs any listening classes.
      *
@@ -515,7 +1782,7 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
      */
     protected open fun setPlaybackState(state: PlaybackState) {
         currentPlaybackState = state
-        playlistManager.onPlaybackStateChanged(state)
+        notifyListeners { playlistManager.onPlaybackStateChanged(state) }
 
         // Makes sure the Media Controls are up-to-date
         if (state != PlaybackState.STOPPED && state != PlaybackState.ERROR) {
@@ -535,6 +1802,18 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
         var audioFocusProvider: AudioFocusProvider<I>? = null
         var listener: Listener<I>? = null
 
+        /**
+         * When `true` the commands and player events will be processed on a dedicated
+         * [PlaylistHandlerActor] thread instead of the thread they are received on
+         */
+        var actorMode = false
+
+        /**
+         * The pool to acquire players from for items that none of the
+         * [BasePlaylistManager.mediaPlayers] handle
+         */
+        var mediaPlayerPool: MediaPlayerPool<I>? = null
+
         fun build(): DefaultPlaylistHandler<I, M> {
             return DefaultPlaylistHandler(context,
                     serviceClass,
@@ -544,7 +1823,9 @@ open class DefaultPlaylistHandler<I : PlaylistItem, out M : BasePlaylistManager<
                     mediaSessionProvider ?: DefaultMediaSessionProvider(context, serviceClass),
                     mediaControlsProvider ?: DefaultMediaControlsProvider(context),
                     audioFocusProvider ?: DefaultAudioFocusProvider(context),
-                    listener)
+                    listener,
+                    if (actorMode) PlaylistHandlerActor() else null,
+                    mediaPlayerPool)
         }
     }
 }
\ No newline at end of file
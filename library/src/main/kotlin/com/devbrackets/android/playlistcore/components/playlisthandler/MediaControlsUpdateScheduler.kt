@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.components.playlisthandler
+
+import android.os.Handler
+import android.os.SystemClock
+import androidx.annotation.IntRange
+
+/**
+ * Coalesces requests to update the media controls (MediaSession, PlaybackState, and
+ * notification) so that bursts of playback state changes, such as
+ * PREPARING -> SEEKING -> PLAYING when an item changes, result in at most one update per
+ * [windowMillis].  A request made while idle is performed immediately and requests made
+ * within the window are combined in to a single update at the end of the window, so the
+ * final state is always pushed.
+ *
+ * @param handler The [Handler] to perform the updates on
+ * @param update The task that performs the update
+ * @param windowMillis The minimum amount of time between updates
+ */
+open class MediaControlsUpdateScheduler @JvmOverloads constructor(
+        protected val handler: Handler,
+        protected val update: Runnable,
+        @IntRange(from = 0) var windowMillis: Long = DEFAULT_WINDOW_MILLIS
+) {
+    companion object {
+        const val DEFAULT_WINDOW_MILLIS = 100L
+    }
+
+    /**
+     * The number of requested updates that were combined with another update
+     */
+    var savedUpdateCount = 0L
+        private set
+
+    /**
+     * The number of updates that have been performed
+     */
+    var performedUpdateCount = 0L
+        private set
+
+    /**
+     * `true` if an update has been scheduled but not yet performed
+     */
+    var isUpdatePending = false
+        private set
+
+    private var lastUpdateTime = 0L
+    private val flushRunnable = Runnable {
+        synchronized(this) {
+            if (!isUpdatePending) {
+                return@Runnable
+            }
+
+            isUpdatePending = false
+        }
+
+        performUpdate()
+    }
+
+    /**
+     * Requests an update of the media controls, performing it on the [handler]
+     * once the [windowMillis] since the previous update has elapsed
+     */
+    open fun schedule() {
+        synchronized(this) {
+            if (isUpdatePending) {
+                savedUpdateCount++
+                return
+            }
+
+            isUpdatePending = true
+            handler.postAtTime(flushRunnable, Math.max(SystemClock.uptimeMillis(), lastUpdateTime + windowMillis))
+        }
+    }
+
+    /**
+     * Performs any pending update immediately instead of waiting for the window to elapse.
+     * This should be called on the thread of the [handler]
+     */
+    open fun flush() {
+        handler.removeCallbacks(flushRunnable)
+        flushRunnable.run()
+    }
+
+    /**
+     * Cancels any pending update without performing it
+     */
+    open fun cancel() {
+        synchronized(this) {
+            isUpdatePending = false
+            handler.removeCallbacks(flushRunnable)
+        }
+    }
+
+    protected open fun performUpdate() {
+        lastUpdateTime = SystemClock.uptimeMillis()
+        performedUpdateCount++
+        update.run()
+    }
+}
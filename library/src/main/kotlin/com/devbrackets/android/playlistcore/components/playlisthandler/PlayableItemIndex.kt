@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.components.playlisthandler
+
+import androidx.annotation.IntRange
+
+/**
+ * Tracks the next playable position for each position in a playlist so that long
+ * runs of items that can't be played are only checked once.  Each position jumps to
+ * the next position to check, and the jumps are compressed on every lookup so that
+ * repeated lookups over the same run are O(1) amortized.
+ *
+ * The index only represents a single set of items and players, [reset] should be
+ * called whenever either changes.
+ *
+ * This class is NOT thread safe.
+ */
+class PlayableItemIndex {
+    companion object {
+        const val NO_POSITION = -1
+
+        /**
+         * The jump for positions that haven't been checked yet
+         */
+        private const val UNKNOWN = -1
+    }
+
+    /**
+     * For each position, the position itself if it is playable, otherwise the next
+     * position to check ([itemCount] when there aren't any playable positions after it)
+     */
+    private var jumps = IntArray(0)
+
+    /**
+     * The number of items represented by the index, `-1` until [reset] is called
+     */
+    var itemCount = -1
+        private set
+
+    /**
+     * Clears the index so that it represents [itemCount] unchecked items
+     */
+    fun reset(@IntRange(from = 0) itemCount: Int) {
+        if (jumps.size < itemCount) {
+            jumps = IntArray(itemCount)
+        }
+
+        jumps.fill(UNKNOWN, 0, itemCount)
+        this.itemCount = itemCount
+    }
+
+    /**
+     * Marks the index as not representing any items, so that it is [reset] before its next use
+     */
+    fun invalidate() {
+        itemCount = -1
+    }
+
+    /**
+     * Finds the first playable position at or after the [start] position
+     *
+     * @param start The position to start searching from
+     * @param isPlayable Determines if the item at a position is playable, this is only called for unchecked positions
+     * @return The playable position or [NO_POSITION] if there aren't any playable positions after the [start]
+     */
+    fun find(@IntRange(from = 0) start: Int, isPlayable: (position: Int) -> Boolean): Int {
+        if (start < 0 || start >= itemCount) {
+            return NO_POSITION
+        }
+
+        var position = start
+        while (position < itemCount) {
+            val jump = jumps[position]
+            if (jump == position) {
+                break
+            }
+
+            if (jump == UNKNOWN) {
+                if (isPlayable(position)) {
+                    jumps[position] = position
+                    break
+                }
+
+                jumps[position] = position + 1
+            }
+
+            position = jumps[position]
+        }
+
+        // Compresses the path so that later lookups jump directly to the result
+        var compressed = start
+        while (compressed < position) {
+            val next = jumps[compressed]
+            jumps[compressed] = position
+            compressed = next
+        }
+
+        return if (position < itemCount) position else NO_POSITION
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.components.playlisthandler
+
+import android.os.SystemClock
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.api.MediaPlayerApi
+import com.devbrackets.android.playlistcore.api.PlaylistItem
+import com.devbrackets.android.playlistcore.data.MediaProgress
+import com.devbrackets.android.playlistcore.data.MediaProgressSnapshot
+import com.devbrackets.android.playlistcore.util.MediaStateSource
+
+/**
+ * Mirrors the playback state of a [MediaPlayerApi] so that frequent reads (e.g. progress
+ * polling) don't need to query the player, which can be expensive for remote players.
+ * The mirror is updated from the commands the [PlaylistHandler] issues and the
+ * [com.devbrackets.android.playlistcore.listener.MediaStatusListener] events it receives,
+ * with the position extrapolated from the last sample using the monotonic clock
+ * and the [playbackRate].
+ *
+ * The real player is only read when the [resyncIntervalMillis] has elapsed since the
+ * last read or after the mirror has been [invalidate]d by a discontinuity (seek,
+ * item change, completion, etc.)
+ *
+ * @param resyncIntervalMillis The maximum amount of time to trust the mirrored state before reading it from the player
+ */
+open class PlayerStateMirror<I : PlaylistItem> @JvmOverloads constructor(
+        @IntRange(from = 0) var resyncIntervalMillis: Long = DEFAULT_RESYNC_INTERVAL_MILLIS
+) : MediaStateSource<I> {
+    companion object {
+        const val DEFAULT_RESYNC_INTERVAL_MILLIS = 1_000L
+    }
+
+    /**
+     * The [MediaPlayerApi] that is currently being mirrored
+     */
+    final override var mediaPlayer: MediaPlayerApi<I>? = null
+        private set
+
+    /**
+     * The rate the position advances while playing, where `1` is normal speed
+     */
+    @get:Synchronized
+    @set:Synchronized
+    var playbackRate = 1F
+        set(value) {
+            samplePosition()
+            field = value
+        }
+
+    private var synced = false
+    private var lastSyncTime = 0L
+
+    private var playing = false
+    private var position = 0L
+    private var positionTime = 0L
+    private var mediaDuration = 0L
+    private var bufferPercent = 0
+
+    /**
+     * Determines if the [mediaPlayer] is playing
+     */
+    val isPlaying: Boolean
+        @Synchronized get() {
+            syncIfNeeded()
+            return playing
+        }
+
+    /**
+     * The extrapolated position of the [mediaPlayer] in milliseconds
+     */
+    override val currentPosition: Long
+        @IntRange(from = 0)
+        @Synchronized get() {
+            syncIfNeeded()
+            return extrapolatedPosition(SystemClock.elapsedRealtime())
+        }
+
+    /**
+     * The position extrapolated from the last known state without reading the
+     * [mediaPlayer], useful when the player may no longer be reachable (e.g.
+     * after a remote player disconnects)
+     */
+    val lastKnownPosition: Long
+        @IntRange(from = 0)
+        @Synchronized get() = extrapolatedPosition(SystemClock.elapsedRealtime())
+
+    /**
+     * The duration of the media in the [mediaPlayer] in milliseconds
+     */
+    override val duration: Long
+        @IntRange(from = 0)
+        @Synchronized get() {
+            syncIfNeeded()
+            return mediaDuration
+        }
+
+    /**
+     * The buffered percent of the media in the [mediaPlayer]
+     */
+    override val bufferedPercent: Int
+        @IntRange(from = 0, to = MediaProgress.MAX_BUFFER_PERCENT.toLong())
+        @Synchronized get() {
+            syncIfNeeded()
+            return bufferPercent
+        }
+
+    /**
+     * Copies the mirrored progress without reading the [mediaPlayer], allowing a consistent
+     * copy to be taken from any thread
+     *
+     * @param timestamp The monotonic time ([SystemClock.elapsedRealtime]) to extrapolate the position to
+     */
+    @Synchronized
+    fun lastKnownProgress(timestamp: Long): MediaProgressSnapshot {
+        return MediaProgressSnapshot(extrapolatedPosition(timestamp), mediaDuration, bufferPercent, timestamp)
+    }
+
+    /**
+     * Starts mirroring the [mediaPlayer], the state will be read from the player on the next access
+     */
+    @Synchronized
+    open fun attach(mediaPlayer: MediaPlayerApi<I>?) {
+        if (this.mediaPlayer !== mediaPlayer) {
+            this.mediaPlayer = mediaPlayer
+            invalidate()
+        }
+    }
+
+    /**
+     * Informs the mirror of a discontinuity in the playback, causing the
+     * state to be read from the [mediaPlayer] on the next access
+     */
+    @Synchronized
+    open fun invalidate() {
+        synced = false
+    }
+
+    /**
+     * Informs the mirror that playback has been started
+     */
+    @Synchronized
+    open fun onPlay() {
+        samplePosition()
+        playing = true
+    }
+
+    /**
+     * Informs the mirror that playback has been paused or stopped
+     */
+    @Synchronized
+    open fun onPause() {
+        samplePosition()
+        playing = false
+    }
+
+    /**
+     * Informs the mirror that the [mediaPlayer] was requested to seek to the [positionMillis]
+     */
+    @Synchronized
+    open fun onSeek(@IntRange(from = 0) positionMillis: Long) {
+        position = positionMillis
+        positionTime = SystemClock.elapsedRealtime()
+    }
+
+    /**
+     * Informs the mirror of a buffering update from the [mediaPlayer]
+     */
+    @Synchronized
+    open fun onBufferingUpdate(@IntRange(from = 0, to = MediaProgress.MAX_BUFFER_PERCENT.toLong()) percent: Int) {
+        bufferPercent = percent
+    }
+
+    /**
+     * Reads the current state from the [mediaPlayer]
+     */
+    @Synchronized
+    open fun sync() {
+        val player = mediaPlayer
+        lastSyncTime = SystemClock.elapsedRealtime()
+        synced = true
+
+        playing = player?.isPlaying ?: false
+        position = player?.currentPosition ?: 0
+        positionTime = lastSyncTime
+        mediaDuration = player?.duration ?: 0
+        bufferPercent = player?.bufferedPercent ?: 0
+    }
+
+    protected open fun syncIfNeeded() {
+        if (!synced || SystemClock.elapsedRealtime() - lastSyncTime >= resyncIntervalMillis) {
+            sync()
+        }
+    }
+
+    /**
+     * Moves the position sample to the current time so that changes to
+     * the [playing] state or [playbackRate] only affect the future position
+     */
+    private fun samplePosition() {
+        val now = SystemClock.elapsedRealtime()
+        position = extrapolatedPosition(now)
+        positionTime = now
+    }
+
+    private fun extrapolatedPosition(now: Long): Long {
+        if (!playing) {
+            return position
+        }
+
+        val extrapolated = position + ((now - positionTime) * playbackRate).toLong()
+        return if (mediaDuration > 0) Math.min(extrapolated, mediaDuration) else Math.max(0, extrapolated)
+    }
+}
@@ -19,6 +19,8 @@ package com.devbrackets.android.playlistcore.components.playlisthandler
 import com.devbrackets.android.playlistcore.api.MediaPlayerApi
 import com.devbrackets.android.playlistcore.api.PlaylistItem
 import com.devbrackets.android.playlistcore.data.MediaProgress
+import com.devbrackets.android.playlistcore.data.MediaProgressSnapshot
+import com.devbrackets.android.playlistcore.data.PlaybackSnapshot
 import com.devbrackets.android.playlistcore.data.PlaybackState
 import com.devbrackets.android.playlistcore.data.PlaylistItemChange
 import com.devbrackets.android.playlistcore.listener.ServiceCallbacks
@@ -35,6 +37,10 @@ abstract class PlaylistHandler<I: PlaylistItem>(val mediaPlayers: List<MediaPlay
      * @return The current PlaylistItem Changed event
      */
     var currentItemChange: PlaylistItemChange<I>? = null
+        set(value) {
+            field = value
+            publishSnapshot()
+        }
 
     /**
      * The current playback progress
@@ -46,10 +52,49 @@ abstract class PlaylistHandler<I: PlaylistItem>(val mediaPlayers: List<MediaPlay
      * The current playback state of the service
      */
     var currentPlaybackState = PlaybackState.PREPARING
-        protected set
+        protected set(value) {
+            field = value
+            publishSnapshot()
+        }
+
+    /**
+     * A consistent view of the [currentItemChange] and [currentPlaybackState], along with
+     * the progress at the time either changed, that is safe to read from any thread.  This
+     * is replaced (never modified) each time one of those values change; the progress isn't
+     * re-published on every update, see [PlaybackSnapshot.estimatedPosition].
+     */
+    @Volatile
+    var playbackSnapshot = PlaybackSnapshot<I>(null, BasePlaylistManager.INVALID_POSITION, currentPlaybackState, currentMediaProgress.snapshot(), 1F, false, false, 0)
+        private set
+
+    /**
+     * Serializes the publishing of the [playbackSnapshot] so that the values are
+     * never replaced by older ones and the generation only increases
+     */
+    private val snapshotLock = Any()
+
+    /**
+     * The position in the playlist to include in the [playbackSnapshot]
+     */
+    protected open val currentPlaylistPosition: Int
+        get() = BasePlaylistManager.INVALID_POSITION
+
+    /**
+     * The playback speed to include in the [playbackSnapshot], where `1` is normal speed
+     */
+    protected open val currentPlaybackSpeed: Float
+        get() = 1F
 
     var currentMediaPlayer: MediaPlayerApi<I>? = null
 
+    /**
+     * `true` if the [BasePlaylistManager] can call the handler directly instead of
+     * sending an intent to the service.  This should be `false` while the service
+     * is stopping so that commands re-start it.
+     */
+    open val acceptsDirectCommands: Boolean
+        get() = true
+
     abstract fun setup(serviceCallbacks: ServiceCallbacks)
     abstract fun tearDown()
 
@@ -100,6 +145,15 @@ abstract class PlaylistHandler<I: PlaylistItem>(val mediaPlayers: List<MediaPlay
      */
     abstract fun seek(positionMillis: Long)
 
+    /**
+     * Informs the handler of the position the user is currently scrubbing (dragging) to.
+     * This may be called very frequently, so implementations should coalesce the seeks.
+     * The scrub is ended by calling [seek] with the final position.
+     */
+    open fun scrub(positionMillis: Long) {
+        seek(positionMillis)
+    }
+
     abstract fun startItemPlayback(positionMillis: Long, startPaused: Boolean)
     abstract fun updateMediaControls()
 
@@ -117,4 +171,52 @@ abstract class PlaylistHandler<I: PlaylistItem>(val mediaPlayers: List<MediaPlay
      * on connection and disconnections.
      */
     abstract fun onRemoteMediaPlayerConnectionChange(mediaPlayer: MediaPlayerApi<I>, state: MediaPlayerApi.RemoteConnectionState)
+
+    /**
+     * Informs the handler that the progress listeners registered with the
+     * [BasePlaylistManager] have changed, allowing the progress polling to be
+     * started, stopped, or have its rate changed
+     */
+    open fun onProgressSubscribersChanged() {
+        // Purposefully left blank
+    }
+
+    /**
+     * Informs the handler that the items in the playlist, or the order they will
+     * be played in (e.g. shuffle or repeat mode), have changed
+     */
+    open fun onPlaylistChanged() {
+        // Purposefully left blank
+    }
+
+    /**
+     * Publishes a new [playbackSnapshot] with the current values.  This is called
+     * whenever the [currentItemChange] or [currentPlaybackState] are set, and only
+     * needs to be called directly when a value the snapshot includes has been modified
+     * in place or without setting them (e.g. a seek while paused).
+     */
+    protected fun publishSnapshot() {
+        synchronized(snapshotLock) {
+            val itemChange = currentItemChange
+            playbackSnapshot = PlaybackSnapshot(
+                    itemChange?.currentItem,
+                    currentPlaylistPosition,
+                    currentPlaybackState,
+                    snapshotProgress(),
+                    currentPlaybackSpeed,
+                    itemChange?.hasNext ?: false,
+                    itemChange?.hasPrevious ?: false,
+                    playbackSnapshot.generation + 1
+            )
+        }
+    }
+
+    /**
+     * Retrieves the progress to include in the [playbackSnapshot].  This may be called
+     * from any thread so implementations shouldn't read progress that is being updated
+     * in place (e.g. by a progress poll) or query the [currentMediaPlayer] directly.
+     */
+    protected open fun snapshotProgress(): MediaProgressSnapshot {
+        return currentMediaProgress.snapshot()
+    }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.components.playlisthandler
+
+import android.os.Handler
+import android.os.HandlerThread
+import android.os.Looper
+import android.os.Process
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * A single threaded event loop used by the [DefaultPlaylistHandler] when running in
+ * actor mode.  Every command and player event is posted to the loop's thread and
+ * processed in order, so the handler state is only ever accessed from one thread
+ * without requiring any locks.
+ *
+ * The number of queued messages and the latency between posting and processing
+ * a message are tracked to help diagnose an overloaded loop.
+ *
+ * @param threadName The name of the thread the loop runs on
+ */
+open class PlaylistHandlerActor @JvmOverloads constructor(threadName: String = DEFAULT_THREAD_NAME) {
+    companion object {
+        const val DEFAULT_THREAD_NAME = "PlaylistHandler_Actor"
+    }
+
+    protected val thread = HandlerThread(threadName, Process.THREAD_PRIORITY_AUDIO).apply {
+        start()
+    }
+
+    /**
+     * The [Handler] for the loop's thread, delayed events should be posted to this
+     */
+    val handler = Handler(thread.looper)
+
+    private val pendingMessages = AtomicInteger()
+
+    /**
+     * `true` if the calling thread is the loop's thread
+     */
+    val isCurrentThread: Boolean
+        get() = Looper.myLooper() === thread.looper
+
+    /**
+     * The number of messages that have been posted but not yet processed
+     */
+    val queueDepth: Int
+        get() = pendingMessages.get()
+
+    /**
+     * The number of messages that have been processed
+     */
+    @Volatile
+    var processedCount = 0L
+        private set
+
+    /**
+     * The time (in nanoseconds) between posting and processing the most recent message
+     */
+    @Volatile
+    var lastLatencyNanos = 0L
+        private set
+
+    /**
+     * The largest time (in nanoseconds) between posting and processing a message
+     */
+    @Volatile
+    var maxLatencyNanos = 0L
+        private set
+
+    /**
+     * The total time (in nanoseconds) between posting and processing all messages
+     */
+    @Volatile
+    var totalLatencyNanos = 0L
+        private set
+
+    /**
+     * Posts the [task] to be processed on the loop's thread after any
+     * previously posted messages
+     *
+     * @return `true` if the task was posted, `false` if the loop has been quit
+     */
+    open fun post(task: Runnable): Boolean {
+        val postTime = System.nanoTime()
+        pendingMessages.incrementAndGet()
+
+        val posted = handler.post {
+            pendingMessages.decrementAndGet()
+            recordLatency(System.nanoTime() - postTime)
+            task.run()
+        }
+
+        if (!posted) {
+            pendingMessages.decrementAndGet()
+        }
+
+        return posted
+    }
+
+    /**
+     * Stops the loop once the messages that have already been posted are processed
+     */
+    open fun quit() {
+        thread.quitSafely()
+    }
+
+    private fun recordLatency(latencyNanos: Long) {
+        // Only updated from the loop's thread so the volatile writes don't race
+        lastLatencyNanos = latencyNanos
+        totalLatencyNanos += latencyNanos
+        if (latencyNanos > maxLatencyNanos) {
+            maxLatencyNanos = latencyNanos
+        }
+
+        processedCount++
+    }
+}
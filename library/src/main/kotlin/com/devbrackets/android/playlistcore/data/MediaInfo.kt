@@ -26,6 +26,13 @@ import com.devbrackets.android.playlistcore.api.PlaylistItem
  * item
  */
 open class MediaInfo {
+    companion object {
+        /**
+         * The [MediaState.position] used when the playback position isn't known
+         */
+        const val POSITION_UNKNOWN = -1L
+    }
+
     var playlistItem: PlaylistItem? = null
     var largeNotificationIcon: Bitmap? = null
     var artwork: Bitmap? = null
@@ -54,11 +61,31 @@ open class MediaInfo {
         var isPreviousEnabled: Boolean = false
         var isNextEnabled: Boolean = false
 
+        /**
+         * The playback position (in milliseconds) at the [positionUpdateTime],
+         * or [POSITION_UNKNOWN]
+         */
+        var position: Long = POSITION_UNKNOWN
+
+        /**
+         * The monotonic time ([android.os.SystemClock.elapsedRealtime]) the [position] was captured at
+         */
+        var positionUpdateTime: Long = 0
+
+        /**
+         * The rate the playback position advances while playing, where `1` is normal speed
+         */
+        var playbackSpeed: Float = 1F
+
         open fun reset() {
             isPlaying = false
             isLoading = false
             isPreviousEnabled = false
             isNextEnabled = false
+
+            position = POSITION_UNKNOWN
+            positionUpdateTime = 0
+            playbackSpeed = 1F
         }
     }
 }
@@ -16,11 +16,13 @@
 
 package com.devbrackets.android.playlistcore.data
 
+import android.os.SystemClock
+
 /**
  * An event to be used to inform listeners of media (e.g. audio, video) progress
  * changes.  This event will be re-used internally to avoid over-creating objects,
- * if you need to store the current values use [.obtain] to
- * create a duplicate of the current progress
+ * if you need to store the current values use [snapshot] to retrieve an
+ * immutable copy of the current progress
  */
 class MediaProgress(position: Long, bufferPercent: Int, duration: Long) {
     companion object {
@@ -33,7 +35,9 @@ class MediaProgress(position: Long, bufferPercent: Int, duration: Long) {
          * @return A copy of the event
          */
         fun obtain(event: MediaProgress): MediaProgress {
-            return MediaProgress(event.position, event.bufferPercent, event.duration)
+            return MediaProgress(event.position, event.bufferPercent, event.duration).also {
+                it.timestamp = event.timestamp
+            }
         }
     }
 
@@ -55,13 +59,42 @@ class MediaProgress(position: Long, bufferPercent: Int, duration: Long) {
     var bufferPercentFloat: Float = 0.toFloat()
         private set
 
+    /**
+     * The monotonic time ([SystemClock.elapsedRealtime]) the progress was last updated at
+     */
+    var timestamp: Long = 0
+
+    private var cachedSnapshot: MediaProgressSnapshot? = null
+
     init {
-        update(position, bufferPercent, duration)
+        update(position, bufferPercent, duration, 0)
     }
 
-    fun update(position: Long, bufferPercent: Int, duration: Long) {
+    @JvmOverloads
+    fun update(position: Long, bufferPercent: Int, duration: Long, timestamp: Long = SystemClock.elapsedRealtime()) {
         this.position = position
         this.bufferPercent = bufferPercent
         this.duration = duration
+        this.timestamp = timestamp
+    }
+
+    /**
+     * Retrieves an immutable copy of the current progress.  The copy is re-used
+     * until the position, duration, or buffer changes, so calling this for every
+     * update while paused or buffering doesn't allocate.  A re-used copy keeps the
+     * [timestamp] of the first update with its values.
+     *
+     * @return The [MediaProgressSnapshot] for the current values
+     */
+    fun snapshot(): MediaProgressSnapshot {
+        cachedSnapshot?.let {
+            if (it.position == position && it.duration == duration && it.bufferPercent == bufferPercent) {
+                return it
+            }
+        }
+
+        return MediaProgressSnapshot(position, duration, bufferPercent, timestamp).also {
+            cachedSnapshot = it
+        }
     }
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.data
+
+/**
+ * An immutable copy of a [MediaProgress] that can be held on to without it
+ * changing with later progress updates.  Use [MediaProgress.snapshot] to retrieve
+ * one, which only creates a new snapshot when the position, duration, or buffer has changed.
+ *
+ * @param timestamp The monotonic time ([android.os.SystemClock.elapsedRealtime]) the values were first recorded at
+ */
+data class MediaProgressSnapshot(
+        val position: Long,
+        val duration: Long,
+        val bufferPercent: Int,
+        val timestamp: Long
+) {
+    val bufferPercentFloat: Float
+        get() = if (bufferPercent == MediaProgress.MAX_BUFFER_PERCENT) bufferPercent.toFloat() else bufferPercent.toFloat() / MediaProgress.MAX_BUFFER_PERCENT.toFloat()
+}
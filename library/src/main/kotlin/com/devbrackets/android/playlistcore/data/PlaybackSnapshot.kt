@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.data
+
+import com.devbrackets.android.playlistcore.api.PlaylistItem
+
+/**
+ * An immutable, consistent view of the playback published by the
+ * [com.devbrackets.android.playlistcore.components.playlisthandler.PlaylistHandler].
+ * A new snapshot is published whenever the item or state change, so a single
+ * snapshot never pairs values from different points in time (e.g. a new item with
+ * the progress of the previous one).  The [progress] is recorded when the snapshot
+ * is published and isn't re-published with every progress update, use
+ * [estimatedPosition] for the current position while playing.
+ *
+ * @param item The item being played
+ * @param position The position of the [item] in the playlist
+ * @param state The playback state
+ * @param progress The playback progress of the [item] when the snapshot was published
+ * @param playbackSpeed The speed the [item] is playing at, where `1` is normal speed
+ * @param hasNext `true` if there is an item after the [item]
+ * @param hasPrevious `true` if there is an item before the [item]
+ * @param generation Incremented with each published snapshot, allowing changes to be detected without comparing the values
+ */
+data class PlaybackSnapshot<out I : PlaylistItem>(
+        val item: I?,
+        val position: Int,
+        val state: PlaybackState,
+        val progress: MediaProgressSnapshot,
+        val playbackSpeed: Float,
+        val hasNext: Boolean,
+        val hasPrevious: Boolean,
+        val generation: Long
+) {
+    /**
+     * Extrapolates the position of the [item] from the [progress] when [state] is
+     * [PlaybackState.PLAYING], without requiring a new snapshot for each progress update
+     *
+     * @param now The current monotonic time ([android.os.SystemClock.elapsedRealtime])
+     * @return The estimated position in milliseconds
+     */
+    fun estimatedPosition(now: Long): Long {
+        if (state != PlaybackState.PLAYING) {
+            return progress.position
+        }
+
+        val position = progress.position + ((now - progress.timestamp) * playbackSpeed).toLong()
+        return if (progress.duration > 0) Math.min(position, progress.duration) else position
+    }
+}
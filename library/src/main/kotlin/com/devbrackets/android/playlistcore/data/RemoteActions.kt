@@ -33,6 +33,7 @@ object RemoteActions {
 
     val ACTION_SEEK_STARTED = PREFIX + "seek_started"
     val ACTION_SEEK_ENDED = PREFIX + "seek_ended"
+    val ACTION_SCRUB = PREFIX + "scrub"
 
     //Extras
     val ACTION_EXTRA_SEEK_POSITION = PREFIX + "seek_position"
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.data
+
+enum class RepeatMode {
+    /**
+     * Playback ends once the last item in the playlist has completed
+     */
+    NONE,
+
+    /**
+     * The current item is restarted when it completes. Explicitly moving to the
+     * next or previous item is still allowed.
+     */
+    ONE,
+
+    /**
+     * Playback continues with the first item in the playlist once the last
+     * item has completed
+     */
+    ALL
+}
@@ -4,6 +4,7 @@ import androidx.annotation.IntRange
 import com.devbrackets.android.playlistcore.api.MediaPlayerApi
 import com.devbrackets.android.playlistcore.data.MediaProgress
 import com.devbrackets.android.playlistcore.api.PlaylistItem
+import com.devbrackets.android.playlistcore.api.RequestAwareMediaPlayerApi
 
 /**
  * Interface definition of a callback to be invoked indicating
@@ -18,6 +19,17 @@ interface MediaStatusListener<I : PlaylistItem> {
      */
     fun onPrepared(mediaPlayer: MediaPlayerApi<I>)
 
+    /**
+     * Called when the media for the request with the [requestGeneration] is ready
+     * for playback.  This is used by [RequestAwareMediaPlayerApi] implementations.
+     *
+     * @param mediaPlayer the MediaPlayerApi that is ready for playback
+     * @param requestGeneration The generation passed to [RequestAwareMediaPlayerApi.playItem]
+     */
+    fun onPrepared(mediaPlayer: MediaPlayerApi<I>, requestGeneration: Long) {
+        onPrepared(mediaPlayer)
+    }
+
     /**
      * Called to update status in buffering a media stream.
      * The received buffering percentage
@@ -38,6 +50,17 @@ interface MediaStatusListener<I : PlaylistItem> {
      */
     fun onSeekComplete(mediaPlayer: MediaPlayerApi<I>)
 
+    /**
+     * Called to indicate the completion of the seek with the [requestGeneration].
+     * This is used by [RequestAwareMediaPlayerApi] implementations.
+     *
+     * @param mediaPlayer The MediaPlayerApi that issued the seek operation
+     * @param requestGeneration The generation passed to [RequestAwareMediaPlayerApi.seekTo]
+     */
+    fun onSeekComplete(mediaPlayer: MediaPlayerApi<I>, requestGeneration: Long) {
+        onSeekComplete(mediaPlayer)
+    }
+
     /**
      * Called when the end of a media source is reached during playback.
      *
@@ -45,6 +68,17 @@ interface MediaStatusListener<I : PlaylistItem> {
      */
     fun onCompletion(mediaPlayer: MediaPlayerApi<I>)
 
+    /**
+     * Called when the end of the media for the request with the [requestGeneration]
+     * is reached.  This is used by [RequestAwareMediaPlayerApi] implementations.
+     *
+     * @param mediaPlayer The MediaPlayerApi that reached the end of the file
+     * @param requestGeneration The generation passed to [RequestAwareMediaPlayerApi.playItem]
+     */
+    fun onCompletion(mediaPlayer: MediaPlayerApi<I>, requestGeneration: Long) {
+        onCompletion(mediaPlayer)
+    }
+
     /**
      * Called to indicate an error.
      *
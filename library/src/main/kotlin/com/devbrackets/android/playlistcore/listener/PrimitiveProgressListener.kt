@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.listener
+
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.data.MediaProgress
+
+/**
+ * A variant of the [ProgressListener] that is informed of the progress values
+ * directly instead of through the shared (and mutable) [MediaProgress]
+ */
+interface PrimitiveProgressListener {
+
+    /**
+     * Occurs when the currently playing item has a progress change
+     *
+     * @param position The playback position in milliseconds
+     * @param duration The duration of the item in milliseconds
+     * @param bufferPercent The percent of the item that is buffered
+     * @param timestamp The monotonic time ([android.os.SystemClock.elapsedRealtime]) the progress was recorded at
+     * @return True if the progress update has been handled
+     */
+    fun onProgressUpdated(
+            @IntRange(from = 0) position: Long,
+            @IntRange(from = 0) duration: Long,
+            @IntRange(from = 0, to = MediaProgress.MAX_BUFFER_PERCENT.toLong()) bufferPercent: Int,
+            timestamp: Long
+    ): Boolean
+}
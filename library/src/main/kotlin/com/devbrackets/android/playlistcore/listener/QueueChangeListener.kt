@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.listener
+
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.manager.QueuePlaylistManager
+
+/**
+ * A callback interface for listening to incremental changes to the
+ * items in a [QueuePlaylistManager]. The positions reported are the
+ * positions at the time of the change.
+ */
+interface QueueChangeListener {
+
+    /**
+     * Occurs when items have been inserted in to the queue
+     *
+     * @param position The position of the first inserted item
+     * @param count The number of items inserted
+     * @return True if the event has been handled
+     */
+    fun onItemsInserted(@IntRange(from = 0) position: Int, @IntRange(from = 1) count: Int): Boolean
+
+    /**
+     * Occurs when items have been removed from the queue
+     *
+     * @param position The position the first removed item was located at
+     * @param count The number of items removed
+     * @return True if the event has been handled
+     */
+    fun onItemsRemoved(@IntRange(from = 0) position: Int, @IntRange(from = 1) count: Int): Boolean
+
+    /**
+     * Occurs when items have been moved within the queue
+     *
+     * @param fromPosition The position the first moved item was located at before the move
+     * @param toPosition The position the first moved item is located at after the move
+     * @param count The number of items moved
+     * @return True if the event has been handled
+     */
+    fun onItemsMoved(@IntRange(from = 0) fromPosition: Int, @IntRange(from = 0) toPosition: Int, @IntRange(from = 1) count: Int): Boolean
+}
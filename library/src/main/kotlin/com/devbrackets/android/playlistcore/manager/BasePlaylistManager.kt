@@ -21,22 +21,36 @@ import android.app.PendingIntent
 import android.app.Service
 import android.content.Intent
 import android.os.Build
+import android.os.Handler
+import android.os.Looper
 import androidx.annotation.IntRange
 import android.util.Log
 import com.devbrackets.android.playlistcore.api.MediaPlayerApi
 import com.devbrackets.android.playlistcore.api.PlaylistItem
 import com.devbrackets.android.playlistcore.components.playlisthandler.PlaylistHandler
 import com.devbrackets.android.playlistcore.data.MediaProgress
+import com.devbrackets.android.playlistcore.data.MediaProgressSnapshot
+import com.devbrackets.android.playlistcore.data.PlaybackSnapshot
 import com.devbrackets.android.playlistcore.data.PlaybackState
 import com.devbrackets.android.playlistcore.data.PlaylistItemChange
 import com.devbrackets.android.playlistcore.data.RemoteActions
+import com.devbrackets.android.playlistcore.data.RepeatMode
 import com.devbrackets.android.playlistcore.listener.PlaybackStatusListener
 import com.devbrackets.android.playlistcore.listener.PlaylistListener
+import com.devbrackets.android.playlistcore.listener.PrimitiveProgressListener
 import com.devbrackets.android.playlistcore.listener.ProgressListener
 import com.devbrackets.android.playlistcore.service.BasePlaylistService
-import java.lang.ref.WeakReference
-import java.util.*
-import java.util.concurrent.locks.ReentrantLock
+import com.devbrackets.android.playlistcore.util.ProgressListenerRegistry
+import com.devbrackets.android.playlistcore.util.PositionShuffleOrder
+import com.devbrackets.android.playlistcore.util.ShuffleOrder
+import com.devbrackets.android.playlistcore.util.WeakListenerRegistry
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.conflate
 
 /**
  * A manager to keep track of a playlist of items that a service can use for playback.
@@ -76,7 +90,19 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * @return True if there is an item after the current one
    */
   open val isNextAvailable: Boolean
-    get() = currentPosition != INVALID_POSITION && currentPosition + 1 < itemCount
+    get() {
+      if (currentPosition == INVALID_POSITION) {
+        return false
+      }
+
+      // The shuffleOrder is used as-is since re-creating it here would make this O(n)
+      val order = shuffleOrder
+      if (order != null) {
+        return shuffleSlot + 1 < order.size || repeatMode != RepeatMode.NONE
+      }
+
+      return currentPosition + 1 < itemCount || repeatMode != RepeatMode.NONE
+    }
 
   /**
    * Determines if there is an item in the play list before the current one.
@@ -84,7 +110,17 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * @return True if there is an item before the current one
    */
   open val isPreviousAvailable: Boolean
-    get() = currentPosition > 0
+    get() {
+      if (currentPosition == INVALID_POSITION) {
+        return false
+      }
+
+      if (shuffleOrder != null) {
+        return shuffleSlot > 0
+      }
+
+      return currentPosition > 0 || repeatMode != RepeatMode.NONE
+    }
 
   /**
    * Retrieves the Item representing the currently selected
@@ -111,26 +147,116 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
   abstract val itemCount: Int
 
   @IntRange(from = INVALID_POSITION.toLong())
-  var currentPosition = INVALID_POSITION
+  open var currentPosition = INVALID_POSITION
     set(value) {
       field = if (value < 0 || value >= itemCount) {
         INVALID_POSITION
       } else {
         value
       }
+
+      updateShuffleSlot(field)
+    }
+
+  /**
+   * Determines how playback continues once the current item, or the end of
+   * the playlist, has been reached.  [RepeatMode.ONE] only affects automatic
+   * progression; explicit calls to [next] and [previous] behave the same
+   * as [RepeatMode.ALL]
+   */
+  var repeatMode = RepeatMode.NONE
+    set(value) {
+      field = value
+      playlistHandler?.onPlaylistChanged()
     }
 
+  /**
+   * `true` if [next] and [previous] move through the items in a shuffled
+   * order, see [setShuffleEnabled]
+   */
+  val isShuffleEnabled: Boolean
+    get() = shuffleOrder != null
+
+  /**
+   * The lazily drawn order to play the items in when shuffle is enabled
+   */
+  protected var shuffleOrder: ShuffleOrder? = null
+
+  /**
+   * The slot in the [shuffleOrder] that represents the [currentPosition]
+   */
+  protected var shuffleSlot = 0
+  protected var shuffleSeed = 0L
+
   @IntRange(from = INVALID_ID)
   var id = INVALID_ID
 
   var playlistHandler: PlaylistHandler<I>? = null
+
+  /**
+   * `true` if [play] and the `invoke*` methods should call the [playlistHandler] directly
+   * when the service is already running in this process instead of sending an [Intent]
+   * to the service.  Intents are still used when the service needs to be started.
+   */
+  var directCommandsEnabled = true
+
+  protected val mainHandler: Handler by lazy {
+    Handler(Looper.getMainLooper())
+  }
   var playbackStatusListener: PlaybackStatusListener<I>? = null
   val mediaPlayers = mutableListOf<MediaPlayerApi<I>>()
 
-  protected var playlistListeners: MutableList<WeakReference<PlaylistListener<I>>> = LinkedList()
-  protected var progressListeners: MutableList<WeakReference<ProgressListener>> = LinkedList()
-  protected var playlistListenersLock = ReentrantLock(true)
-  protected var progressListenersLock = ReentrantLock(true)
+  protected val playlistListeners = WeakListenerRegistry<PlaylistListener<I>>()
+  protected val progressListeners: ProgressListenerRegistry<ProgressListener> = object : ProgressListenerRegistry.Listeners() {
+    override fun onRequestedIntervalChanged(intervalMillis: Long) {
+      playlistHandler?.onProgressSubscribersChanged()
+    }
+  }
+
+  protected val mutablePlaybackStateFlow = MutableStateFlow(PlaybackState.STOPPED)
+  protected val mutableItemChangeFlow = MutableStateFlow<PlaylistItemChange<I>?>(null)
+
+  /**
+   * The most recent [PlaybackState], updated before the [PlaylistListener]s are notified
+   */
+  val playbackStateFlow: StateFlow<PlaybackState> = mutablePlaybackStateFlow.asStateFlow()
+
+  /**
+   * The most recent [PlaylistItemChange], updated before the [PlaylistListener]s are notified
+   */
+  val itemChangeFlow: StateFlow<PlaylistItemChange<I>?> = mutableItemChangeFlow.asStateFlow()
+
+  protected val primitiveProgressListeners: ProgressListenerRegistry<PrimitiveProgressListener> = object : ProgressListenerRegistry.PrimitiveListeners() {
+    override fun onRequestedIntervalChanged(intervalMillis: Long) {
+      playlistHandler?.onProgressSubscribersChanged()
+    }
+  }
+
+  /**
+   * The smallest progress interval requested by the registered [ProgressListener]s,
+   * [ProgressListenerRegistry.DEFAULT_INTERVAL] if a listener requested every update,
+   * or [ProgressListenerRegistry.NO_INTERVAL] when there aren't any listeners
+   */
+  open val requestedProgressInterval: Long
+    get() = ProgressListenerRegistry.combineIntervals(progressListeners.requestedIntervalMillis, primitiveProgressListeners.requestedIntervalMillis)
+
+  /**
+   * The smallest progress interval explicitly requested by the registered [ProgressListener]s
+   * or [ProgressListenerRegistry.NO_INTERVAL] if none of them requested an interval
+   */
+  open val smallestProgressInterval: Long
+    get() = ProgressListenerRegistry.combineIntervals(progressListeners.smallestIntervalMillis, primitiveProgressListeners.smallestIntervalMillis)
+
+  /**
+   * The interval (in milliseconds) the [playlistHandler] is polling the progress at,
+   * used to tolerate jitter when delivering the progress to the registered listeners
+   */
+  open var progressPollInterval: Long
+    get() = progressListeners.pollIntervalMillis
+    set(value) {
+      progressListeners.pollIntervalMillis = value
+      primitiveProgressListeners.pollIntervalMillis = value
+    }
 
   protected var seekEndedIntent: Intent? = null
   protected var playPausePendingIntent: PendingIntent? = null
@@ -152,6 +278,28 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
     currentPosition = INVALID_POSITION
   }
 
+  /**
+   * Enables or disables playing the items in a shuffled order.  The current item
+   * is used as the start of the shuffled order, and the history is retained so that
+   * [previous] returns to the items played before it.  Changing the items in the
+   * playlist will re-create the shuffled order unless the manager updates it for
+   * the change (e.g. the [QueuePlaylistManager]).
+   *
+   * @param enabled `true` if the items should be played in a shuffled order
+   * @param seed The seed used to generate the shuffled order
+   */
+  @JvmOverloads
+  open fun setShuffleEnabled(enabled: Boolean, seed: Long = System.nanoTime()) {
+    if (!enabled) {
+      shuffleOrder = null
+    } else {
+      shuffleSeed = seed
+      createShuffleOrder()
+    }
+
+    playlistHandler?.onPlaylistChanged()
+  }
+
   /**
    * This is a pass through method that is called from the [BasePlaylistService] to inform
    * any listeners that are registered through [.registerPlaylistListener]
@@ -162,7 +310,8 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * @return `true` if the event should be consumed
    */
   override fun onPlaylistItemChanged(currentItem: I?, hasNext: Boolean, hasPrevious: Boolean): Boolean {
-    return notifyListeners(playlistListenersLock, playlistListeners) {
+    mutableItemChangeFlow.value = PlaylistItemChange(currentItem, hasPrevious, hasNext)
+    return playlistListeners.notify {
       it.onPlaylistItemChanged(currentItem, hasNext, hasPrevious)
     }
   }
@@ -175,7 +324,8 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * @return True if the event should be consumed
    */
   override fun onPlaybackStateChanged(playbackState: PlaybackState): Boolean {
-    return notifyListeners(playlistListenersLock, playlistListeners) {
+    mutablePlaybackStateFlow.value = playbackState
+    return playlistListeners.notify {
       it.onPlaybackStateChanged(playbackState)
     }
   }
@@ -184,13 +334,15 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * This is a pass through method that is called from the [BasePlaylistService] to inform
    * any listeners that are registered through [.registerPlaylistListener]
    *
+   * The [PrimitiveProgressListener]s (including the [progressFlow] collectors) are always
+   * informed, even when a [ProgressListener] consumes the progress.
+   *
    * @param mediaProgress The current media progress
    * @return True if the mediaProgress should be consumed
    */
   override fun onProgressUpdated(mediaProgress: MediaProgress): Boolean {
-    return notifyListeners(progressListenersLock, progressListeners) {
-      it.onProgressUpdated(mediaProgress)
-    }
+    val consumed = progressListeners.dispatch(mediaProgress, mediaProgress.timestamp)
+    return primitiveProgressListeners.dispatch(mediaProgress, mediaProgress.timestamp) || consumed
   }
 
   /**
@@ -217,6 +369,16 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
   open val currentItemChange: PlaylistItemChange<I>?
     get() = playlistHandler?.currentItemChange
 
+  /**
+   * Retrieves a consistent view of the current item, playback state, and progress.
+   * Unlike reading [currentItemChange], [currentPlaybackState], and [currentProgress]
+   * separately this is safe to call from any thread.
+   *
+   * @return The most recent [PlaybackSnapshot] or `null` if the service isn't running
+   */
+  open val playbackSnapshot: PlaybackSnapshot<I>?
+    get() = playlistHandler?.playbackSnapshot
+
   /**
    * Registers the listener to this service.  These callbacks will only be
    * called if [.registerService] has been called.
@@ -224,9 +386,7 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * @param listener The listener to register
    */
   open fun registerPlaylistListener(listener: PlaylistListener<I>) {
-    playlistListenersLock.lock()
-    playlistListeners.add(WeakReference(listener))
-    playlistListenersLock.unlock()
+    playlistListeners.add(listener)
   }
 
   /**
@@ -235,29 +395,54 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
 
    * @param listener The listener to remove
    */
+  @Suppress("UNCHECKED_CAST")
   open fun unRegisterPlaylistListener(listener: PlaylistListener<*>) {
-    playlistListenersLock.lock()
-    val iterator = playlistListeners.iterator()
+    playlistListeners.remove(listener as PlaylistListener<I>)
+  }
 
-    while (iterator.hasNext()) {
-      val playlistListener = iterator.next().get()
-      if (playlistListener == null || playlistListener == listener) {
-        iterator.remove()
-      }
-    }
+  /**
+   * Registers the listener to be notified of progress updates.  The progress is only
+   * polled while there are registered listeners, at the fastest interval any of them
+   * requested.
+   *
+   * @param listener The listener to notify of progress updates
+   * @param intervalMillis The minimum amount of time between updates, or [ProgressListenerRegistry.DEFAULT_INTERVAL] for every update
+   * @param minPositionDelta The minimum change in position (milliseconds) required to notify the listener
+   */
+  @JvmOverloads
+  open fun registerProgressListener(
+      listener: ProgressListener,
+      @IntRange(from = 0) intervalMillis: Long = ProgressListenerRegistry.DEFAULT_INTERVAL,
+      @IntRange(from = 0) minPositionDelta: Long = 0
+  ) {
+    progressListeners.add(listener, intervalMillis, minPositionDelta)
+  }
 
-    playlistListenersLock.unlock()
+  /**
+   * UnRegisters the specified listener.  This should only be called for listeners
+   * that have been registered with [.registerProgressListener]
+   *
+   * @param listener The listener to unregister
+   */
+  open fun unRegisterProgressListener(listener: ProgressListener) {
+    progressListeners.remove(listener)
   }
 
   /**
-   * Registers the listener to be notified of progress updates.
+   * Registers the listener to be notified of progress updates with the primitive
+   * progress values, avoiding the need to copy the shared [MediaProgress].
    *
    * @param listener The listener to notify of progress updates
+   * @param intervalMillis The minimum amount of time between updates, or [ProgressListenerRegistry.DEFAULT_INTERVAL] for every update
+   * @param minPositionDelta The minimum change in position (milliseconds) required to notify the listener
    */
-  open fun registerProgressListener(listener: ProgressListener) {
-    progressListenersLock.lock()
-    progressListeners.add(WeakReference(listener))
-    progressListenersLock.unlock()
+  @JvmOverloads
+  open fun registerProgressListener(
+      listener: PrimitiveProgressListener,
+      @IntRange(from = 0) intervalMillis: Long = ProgressListenerRegistry.DEFAULT_INTERVAL,
+      @IntRange(from = 0) minPositionDelta: Long = 0
+  ) {
+    primitiveProgressListeners.add(listener, intervalMillis, minPositionDelta)
   }
 
   /**
@@ -266,18 +451,38 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    *
    * @param listener The listener to unregister
    */
-  open fun unRegisterProgressListener(listener: ProgressListener) {
-    progressListenersLock.lock()
-    val iterator = progressListeners.iterator()
+  open fun unRegisterProgressListener(listener: PrimitiveProgressListener) {
+    primitiveProgressListeners.remove(listener)
+  }
 
-    while (iterator.hasNext()) {
-      val progressListener = iterator.next().get()
-      if (progressListener == null || progressListener == listener) {
-        iterator.remove()
+  /**
+   * Creates a [Flow] of the playback progress.  The progress is only polled while the
+   * flow is being collected, at the fastest interval requested by any collector or
+   * listener, and is conflated so that a slow collector only receives the most recent
+   * progress instead of building up a backlog.
+   *
+   * @param intervalMillis The minimum amount of time between updates, or [ProgressListenerRegistry.DEFAULT_INTERVAL] for every update
+   * @param minPositionDelta The minimum change in position (milliseconds) required to emit an update
+   */
+  @JvmOverloads
+  open fun progressFlow(
+      @IntRange(from = 0) intervalMillis: Long = ProgressListenerRegistry.DEFAULT_INTERVAL,
+      @IntRange(from = 0) minPositionDelta: Long = 0
+  ): Flow<MediaProgressSnapshot> {
+    return callbackFlow {
+      // Held by the awaitClose block so the weakly registered listener lives as long as the collection
+      val listener = object : PrimitiveProgressListener {
+        override fun onProgressUpdated(position: Long, duration: Long, bufferPercent: Int, timestamp: Long): Boolean {
+          trySend(MediaProgressSnapshot(position, duration, bufferPercent, timestamp))
+          return false
+        }
       }
-    }
 
-    progressListenersLock.unlock()
+      registerProgressListener(listener, intervalMillis, minPositionDelta)
+      awaitClose {
+        unRegisterProgressListener(listener)
+      }
+    }.conflate()
   }
 
   /**
@@ -291,6 +496,10 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
   open fun play(@IntRange(from = 0) seekPosition: Long, startPaused: Boolean) {
     currentItem ?: return
 
+    if (dispatchToHandler { it.startItemPlayback(seekPosition, startPaused) }) {
+      return
+    }
+
     //Starts the playlist service
     val intent = Intent(application, mediaServiceClass)
     intent.action = RemoteActions.ACTION_START_SERVICE
@@ -351,13 +560,98 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * @return The next Item or null
    */
   open fun next(): I? {
-    if (currentPosition != INVALID_POSITION) {
-      currentPosition = Math.min(currentPosition + 1, itemCount)
+    if (currentPosition == INVALID_POSITION) {
+      return currentItem
+    }
+
+    val order = currentShuffleOrder()
+    if (order != null) {
+      val slot = when {
+        shuffleSlot + 1 < order.size -> shuffleSlot + 1
+        repeatMode != RepeatMode.NONE -> 0
+        else -> INVALID_POSITION
+      }
+
+      if (slot != INVALID_POSITION) {
+        shuffleSlot = slot
+        currentPosition = order.positionAt(slot)
+      } else {
+        currentPosition = INVALID_POSITION
+      }
+
+      return currentItem
+    }
+
+    currentPosition = when {
+      currentPosition + 1 < itemCount -> currentPosition + 1
+      repeatMode != RepeatMode.NONE -> 0
+      else -> INVALID_POSITION
     }
 
     return currentItem
   }
 
+  /**
+   * Retrieves the item that [next] would move to without changing the
+   * currently selected item.
+   *
+   * @return The next Item or null
+   */
+  open fun peekNext(): I? {
+    val position = peekNextPosition()
+    return if (position != INVALID_POSITION) getItem(position) else null
+  }
+
+  /**
+   * Determines the position that [next] would move to without changing the
+   * currently selected item.
+   *
+   * @return The next position or [INVALID_POSITION]
+   */
+  protected open fun peekNextPosition(): Int {
+    if (currentPosition == INVALID_POSITION) {
+      return INVALID_POSITION
+    }
+
+    val order = currentShuffleOrder()
+    return if (order != null) {
+      when {
+        shuffleSlot + 1 < order.size -> order.positionAt(shuffleSlot + 1)
+        repeatMode != RepeatMode.NONE -> order.positionAt(0)
+        else -> INVALID_POSITION
+      }
+    } else {
+      when {
+        currentPosition + 1 < itemCount -> currentPosition + 1
+        repeatMode != RepeatMode.NONE -> 0
+        else -> INVALID_POSITION
+      }
+    }
+  }
+
+  /**
+   * Determines the position that [previous] would move to without changing the
+   * currently selected item.
+   *
+   * @return The previous position or [INVALID_POSITION]
+   */
+  protected open fun peekPreviousPosition(): Int {
+    if (currentPosition == INVALID_POSITION) {
+      return INVALID_POSITION
+    }
+
+    val order = currentShuffleOrder()
+    if (order != null) {
+      return order.positionAt(Math.max(0, shuffleSlot - 1))
+    }
+
+    return when {
+      currentPosition > 0 -> currentPosition - 1
+      repeatMode != RepeatMode.NONE -> itemCount - 1
+      else -> 0
+    }
+  }
+
   /**
    * Updates the currently selected item to the previous one and retrieves the
    * Item representing that item.  If there aren't any items in the play
@@ -366,13 +660,90 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * @return The previous Item or null
    */
   open fun previous(): I? {
-    if (currentPosition != INVALID_POSITION) {
-      currentPosition = Math.max(0, currentPosition - 1)
+    if (currentPosition == INVALID_POSITION) {
+      return currentItem
+    }
+
+    val order = currentShuffleOrder()
+    if (order != null) {
+      shuffleSlot = Math.max(0, shuffleSlot - 1)
+      currentPosition = order.positionAt(shuffleSlot)
+      return currentItem
+    }
+
+    currentPosition = when {
+      currentPosition > 0 -> currentPosition - 1
+      repeatMode != RepeatMode.NONE -> itemCount - 1
+      else -> 0
     }
 
     return currentItem
   }
 
+  /**
+   * Informs the manager that the items in the playlist have changed so that
+   * any state derived from them (e.g. the shuffled order) can be re-created.
+   * This should be called after the [currentPosition] has been updated for the change.
+   */
+  protected open fun onPlaylistItemsChanged() {
+    if (shuffleOrder != null) {
+      createShuffleOrder()
+    }
+
+    playlistHandler?.onPlaylistChanged()
+  }
+
+  /**
+   * Retrieves the [shuffleOrder] if shuffle is enabled.  The order is re-created when
+   * the items change (see [onPlaylistItemsChanged]), this only re-creates it when the
+   * number of items was changed without the manager being informed.
+   */
+  protected fun currentShuffleOrder(): ShuffleOrder? {
+    val order = shuffleOrder ?: return null
+    return if (order.size == itemCount) order else createShuffleOrder()
+  }
+
+  /**
+   * Creates a new [shuffleOrder] for the current items that starts
+   * with the [currentPosition]
+   */
+  protected open fun createShuffleOrder(): ShuffleOrder {
+    return newShuffleOrder().also {
+      shuffleOrder = it
+      // The position may not have been updated for the new items yet, it will be drawn once it is
+      shuffleSlot = if (currentPosition != INVALID_POSITION && currentPosition < it.size) it.draw(currentPosition) else 0
+    }
+  }
+
+  /**
+   * Creates the [ShuffleOrder] for the current items using the [shuffleSeed]
+   */
+  protected open fun newShuffleOrder(): ShuffleOrder {
+    return PositionShuffleOrder(itemCount, shuffleSeed)
+  }
+
+  /**
+   * Makes sure the [shuffleSlot] represents the [position] when it was
+   * changed directly (e.g. with [setCurrentItem])
+   */
+  private fun updateShuffleSlot(position: Int) {
+    val order = shuffleOrder ?: return
+    if (position == INVALID_POSITION) {
+      return
+    }
+
+    // The order is re-created once the manager is informed of the item change
+    if (order.size != itemCount) {
+      return
+    }
+
+    if (shuffleSlot < order.drawnCount && order.positionAt(shuffleSlot) == position) {
+      return
+    }
+
+    shuffleSlot = order.draw(position)
+  }
+
   /**
    * Informs the Media service that the current item
    * needs to be played/paused.  The service specified with
@@ -380,6 +751,10 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * [RemoteActions.ACTION_PLAY_PAUSE]
    */
   open fun invokePausePlay() {
+    if (dispatchToHandler { it.togglePlayPause() }) {
+      return
+    }
+
     sendPendingIntent(playPausePendingIntent)
   }
 
@@ -390,6 +765,10 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * [RemoteActions.ACTION_NEXT]
    */
   open fun invokeNext() {
+    if (dispatchToHandler { it.next() }) {
+      return
+    }
+
     sendPendingIntent(nextPendingIntent)
   }
 
@@ -400,6 +779,10 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * [RemoteActions.ACTION_PREVIOUS]
    */
   open fun invokePrevious() {
+    if (dispatchToHandler { it.previous() }) {
+      return
+    }
+
     sendPendingIntent(previousPendingIntent)
   }
 
@@ -410,6 +793,10 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * [RemoteActions.ACTION_STOP]
    */
   open fun invokeStop() {
+    if (dispatchToHandler { it.stop() }) {
+      return
+    }
+
     sendPendingIntent(stopPendingIntent)
   }
 
@@ -420,6 +807,10 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * [RemoteActions.ACTION_SEEK_STARTED]
    */
   open fun invokeSeekStarted() {
+    if (dispatchToHandler { it.startSeek() }) {
+      return
+    }
+
     sendPendingIntent(seekStartedPendingIntent)
   }
 
@@ -431,6 +822,10 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
    * key [RemoteActions.ACTION_EXTRA_SEEK_POSITION] (long)
    */
   open fun invokeSeekEnded(@IntRange(from = 0) seekPosition: Long) {
+    if (dispatchToHandler { it.seek(seekPosition) }) {
+      return
+    }
+
     //Tries to start the intent
     seekEndedIntent?.let {
       it.putExtra(RemoteActions.ACTION_EXTRA_SEEK_POSITION, seekPosition)
@@ -438,25 +833,44 @@ abstract class BasePlaylistManager<I : PlaylistItem>(protected val application:
     }
   }
 
-  protected inline fun <T> notifyListeners(lock: ReentrantLock, list: MutableList<WeakReference<T>>, handler: (T) -> Boolean): Boolean {
-    lock.lock()
-    val iterator = list.iterator()
+  /**
+   * Informs the Media service of the position the user is scrubbing (e.g. dragging a
+   * SeekBar) to.  This can be called for every change in position; the seeks are
+   * coalesced so that only the latest position is sought to.  The scrub should be
+   * ended with [invokeSeekEnded] and the final position.  The intermediate positions
+   * are dropped when the service isn't accepting direct commands (e.g. it's running in
+   * another process) instead of starting the service for each change in position; only
+   * the final position from [invokeSeekEnded] is sought to in that case.
+   */
+  open fun invokeScrub(@IntRange(from = 0) scrubPosition: Long) {
+    dispatchToHandler { it.scrub(scrubPosition) }
+  }
 
-    while (iterator.hasNext()) {
-      val listener = iterator.next().get()
-      if (listener == null) {
-        iterator.remove()
-        continue
-      }
+  /**
+   * Performs the [command] on the [playlistHandler] when the service is running in
+   * this process and accepting direct commands, avoiding the [Intent] round trip through
+   * the system.  The command is performed immediately when called from the main thread,
+   * otherwise it is posted to the main thread.
+   *
+   * @param command The command to perform on the [playlistHandler]
+   * @return `true` if the command was dispatched, `false` if an [Intent] should be used instead
+   */
+  protected open fun dispatchToHandler(command: (PlaylistHandler<I>) -> Unit): Boolean {
+    val handler = playlistHandler
+    if (!directCommandsEnabled || handler == null || !handler.acceptsDirectCommands) {
+      return false
+    }
 
-      if (handler.invoke(listener)) {
-        lock.unlock()
-        return true
+    if (Looper.myLooper() == Looper.getMainLooper()) {
+      command(handler)
+    } else {
+      mainHandler.post {
+        // The handler is re-resolved in case the service was torn down before the command ran
+        playlistHandler?.let(command)
       }
     }
 
-    lock.unlock()
-    return false
+    return true
   }
 
   /**
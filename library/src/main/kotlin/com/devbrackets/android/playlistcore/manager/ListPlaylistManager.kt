@@ -20,6 +20,7 @@ import android.app.Application
 import android.app.Service
 import androidx.annotation.IntRange
 import com.devbrackets.android.playlistcore.api.PlaylistItem
+import com.devbrackets.android.playlistcore.util.LongIntMap
 
 /**
  * An implementation of the [BasePlaylistManager] that supports Lists
@@ -30,6 +31,32 @@ open class ListPlaylistManager<I : PlaylistItem>(application: Application, media
         BasePlaylistManager<I>(application, mediaServiceClass) {
     protected var items: List<I>? = null
 
+    /**
+     * When `true` an index of item ids to positions is built when the items are
+     * specified with [setParameters] so that [getPositionForItem] (and by extension
+     * [setCurrentItem]) don't need to scan the entire list.  The index is only used
+     * when every item has a unique id that isn't [BasePlaylistManager.INVALID_ID],
+     * otherwise the lookup falls back to scanning the items.
+     */
+    var indexItems = false
+        set(value) {
+            field = value
+            notifyItemsChanged()
+        }
+
+    protected val positionIndex = LongIntMap(missingValue = BasePlaylistManager.INVALID_POSITION)
+
+    /**
+     * `true` if the [positionIndex] represents the current [items]
+     */
+    protected var indexBuilt = false
+
+    /**
+     * `true` if the [positionIndex] can be used for lookups, this will be `false`
+     * when the [items] contain duplicate or invalid ids
+     */
+    protected var indexUsable = false
+
     override val itemCount: Int
         get() = items?.size ?: 0
 
@@ -42,6 +69,13 @@ open class ListPlaylistManager<I : PlaylistItem>(application: Application, media
     }
 
     override fun getPositionForItem(itemId: Long): Int {
+        if (indexItems) {
+            val position = getIndexedPosition(itemId)
+            if (position != null) {
+                return position
+            }
+        }
+
         items?.forEachIndexed { index, item ->
             if (item.id == itemId) {
                 return index
@@ -74,8 +108,72 @@ open class ListPlaylistManager<I : PlaylistItem>(application: Application, media
      */
     open fun setParameters(items: List<I>?, @IntRange(from = 0) startPosition: Int) {
         this.items = items
-
         currentPosition = startPosition
         id = BasePlaylistManager.INVALID_ID
+
+        // Notified once the position is updated so the shuffled order starts with it
+        notifyItemsChanged()
+
+        if (indexItems) {
+            buildIndex()
+        }
+    }
+
+    /**
+     * Informs the manager that the [items] have been modified outside of
+     * [setParameters] (e.g. a mutable list was changed).  This will cause the
+     * id index to be rebuilt the next time it's needed.
+     */
+    open fun notifyItemsChanged() {
+        indexBuilt = false
+        indexUsable = false
+
+        onPlaylistItemsChanged()
+    }
+
+    /**
+     * Retrieves the position for the [itemId] using the [positionIndex], building
+     * it if needed.
+     *
+     * @return The position for the item, or `null` if the index can't be used
+     */
+    protected open fun getIndexedPosition(itemId: Long): Int? {
+        if (!indexBuilt) {
+            buildIndex()
+        }
+
+        if (!indexUsable) {
+            return null
+        }
+
+        val position = positionIndex[itemId]
+        if (position == BasePlaylistManager.INVALID_POSITION || getItem(position)?.id == itemId) {
+            return position
+        }
+
+        // The items were changed without notifying the manager, so we rebuild the index once
+        buildIndex()
+        return if (indexUsable) positionIndex[itemId] else null
+    }
+
+    /**
+     * Builds the [positionIndex] from the current [items].  If any of the items
+     * have a duplicate id or an id of [BasePlaylistManager.INVALID_ID] then the
+     * index will be marked as unusable.
+     */
+    protected open fun buildIndex() {
+        val currentItems = items.orEmpty()
+        positionIndex.clear(currentItems.size)
+
+        indexBuilt = true
+        indexUsable = true
+
+        currentItems.forEachIndexed { index, item ->
+            if (item.id == BasePlaylistManager.INVALID_ID || positionIndex.put(item.id, index) != BasePlaylistManager.INVALID_POSITION) {
+                positionIndex.clear()
+                indexUsable = false
+                return
+            }
+        }
     }
 }
\ No newline at end of file
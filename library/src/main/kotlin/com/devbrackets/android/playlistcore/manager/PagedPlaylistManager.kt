@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.manager
+
+import android.app.Application
+import android.app.Service
+import android.util.Log
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.api.PlaylistItem
+import java.util.concurrent.*
+
+/**
+ * An implementation of the [BasePlaylistManager] that loads the items from a
+ * [PageSource] in fixed size pages instead of requiring the entire playlist
+ * to be held in memory.  A bounded number of pages are kept resident (least
+ * recently used pages are dropped first) and the pages surrounding the
+ * [currentPosition] are loaded in the background so that moving through the
+ * playlist doesn't need to wait on the [PageSource].
+ *
+ * {@inheritDoc}
+ *
+ * @param pageSize The number of items to load with each call to [PageSource.loadRange]
+ * @param maxResidentPages The maximum number of pages to keep in memory
+ * @param prefetchExecutor The [Executor] to load the predicted pages with
+ */
+open class PagedPlaylistManager<I : PlaylistItem> @JvmOverloads constructor(
+        application: Application,
+        mediaServiceClass: Class<out Service>,
+        @IntRange(from = 1) protected val pageSize: Int = DEFAULT_PAGE_SIZE,
+        @IntRange(from = 3) protected val maxResidentPages: Int = DEFAULT_MAX_RESIDENT_PAGES,
+        protected val prefetchExecutor: Executor = newPrefetchExecutor()
+) : BasePlaylistManager<I>(application, mediaServiceClass) {
+    companion object {
+        private const val TAG = "PagedPlaylistManager"
+
+        const val DEFAULT_PAGE_SIZE = 100
+        const val DEFAULT_MAX_RESIDENT_PAGES = 8
+
+        private const val PREFETCH_THREAD_NAME = "PagedPlaylistManager_Prefetch"
+        private const val PREFETCH_KEEP_ALIVE_SECONDS = 30L
+
+        /**
+         * Creates the default [Executor] used to prefetch pages.  This only keeps
+         * a thread alive while pages are actively being loaded.
+         */
+        private fun newPrefetchExecutor(): Executor {
+            return ThreadPoolExecutor(0, 1, PREFETCH_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, LinkedBlockingQueue()) {
+                Thread(it, PREFETCH_THREAD_NAME).apply {
+                    isDaemon = true
+                }
+            }
+        }
+    }
+
+    /**
+     * Provides the items for the [PagedPlaylistManager].  [loadRange] will be called
+     * from both the thread requesting an item and the prefetch thread, so implementations
+     * should be thread safe.
+     */
+    interface PageSource<out I : PlaylistItem> {
+        /**
+         * The total number of items available from this source
+         */
+        @get:IntRange(from = 0)
+        val itemCount: Int
+
+        /**
+         * Loads the items in the range [offset, offset + size).  This may
+         * block, however it will only be called on the thread requesting an item
+         * when the page couldn't be predicted ahead of time.
+         *
+         * @param offset The position of the first item to load
+         * @param size The number of items to load
+         * @return The loaded items, in playlist order
+         */
+        fun loadRange(@IntRange(from = 0) offset: Int, @IntRange(from = 1) size: Int): List<I>
+
+        /**
+         * Determines the position for the item with the passed id.  This is only
+         * called when the item isn't in any of the resident pages.
+         *
+         * @param itemId The items id to use for finding the position
+         * @return The items position or [BasePlaylistManager.INVALID_POSITION]
+         */
+        fun getPositionForItem(itemId: Long): Int {
+            return BasePlaylistManager.INVALID_POSITION
+        }
+    }
+
+    /**
+     * The number of pages on either side of the page containing the [currentPosition]
+     * to load ahead of time.  When shuffled only the pages containing the next and
+     * previous items are loaded ahead of time instead.
+     */
+    @IntRange(from = 0)
+    var prefetchDistance = 1
+        set(value) {
+            field = Math.max(0, Math.min(value, (maxResidentPages - 1) / 2))
+        }
+
+    protected var pageSource: PageSource<I>? = null
+    protected var sourceItemCount = 0
+
+    /**
+     * Incremented each time the [pageSource] changes so that pages loaded
+     * from a previous source are discarded instead of being made resident
+     */
+    protected var sourceGeneration = 0
+
+    protected val pageLock = Any()
+    protected val pendingPages = HashMap<Int, PageLoadTask>()
+    protected val residentPages = object : LinkedHashMap<Int, List<I>>(maxResidentPages, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, List<I>>?): Boolean {
+            return size > maxResidentPages
+        }
+    }
+
+    init {
+        require(pageSize > 0) { "The pageSize must be greater than 0" }
+        require(maxResidentPages >= 3) { "At least 3 pages must be resident to support prefetching" }
+    }
+
+    override val itemCount: Int
+        get() = sourceItemCount
+
+    override var currentPosition: Int
+        get() = super.currentPosition
+        set(value) {
+            super.currentPosition = value
+            prefetchAround(super.currentPosition)
+            prefetchPredicted()
+        }
+
+    override fun setShuffleEnabled(enabled: Boolean, seed: Long) {
+        super.setShuffleEnabled(enabled, seed)
+        prefetchPredicted()
+    }
+
+    override fun getItem(@IntRange(from = 0) position: Int): I? {
+        if (position < 0 || position >= itemCount) {
+            return null
+        }
+
+        val page = position / pageSize
+        return getPage(page)?.getOrNull(position - page * pageSize)
+    }
+
+    override fun getPositionForItem(itemId: Long): Int {
+        synchronized(pageLock) {
+            residentPages.forEach { (page, items) ->
+                items.forEachIndexed { index, item ->
+                    if (item.id == itemId) {
+                        return page * pageSize + index
+                    }
+                }
+            }
+        }
+
+        return pageSource?.getPositionForItem(itemId) ?: BasePlaylistManager.INVALID_POSITION
+    }
+
+    /**
+     * A utility method to allow for single line implementations to start playing the media
+     * item as specified by the passed parameters.
+     *
+     * @param pageSource The source to load the items to play from
+     * @param startPosition The position in the source to start playback
+     * @param playbackPosition The playback position in the item located at `startPosition` to start at in milliseconds
+     * @param startPaused True if the media item should start paused instead of playing
+     */
+    open fun play(pageSource: PageSource<I>?, @IntRange(from = 0) startPosition: Int, @IntRange(from = 0) playbackPosition: Int, startPaused: Boolean) {
+        setParameters(pageSource, startPosition)
+        play(playbackPosition.toLong(), startPaused)
+    }
+
+    /**
+     * Sets the source to load the items for the play list from.  No items will be loaded
+     * until they are requested, or predicted from the `startPosition`.
+     *
+     * @param pageSource The source to load the items to play from
+     * @param startPosition The position in the source to start playback with
+     */
+    open fun setParameters(pageSource: PageSource<I>?, @IntRange(from = 0) startPosition: Int) {
+        this.pageSource = pageSource
+        clearPages()
+
+        // Notified once the position is updated so the shuffled order starts with it
+        currentPosition = startPosition
+        id = BasePlaylistManager.INVALID_ID
+        onPlaylistItemsChanged()
+    }
+
+    /**
+     * Informs the manager that the items provided by the [pageSource] have changed.
+     * This drops all resident pages and re-reads the [PageSource.itemCount]
+     */
+    open fun notifyDataSetChanged() {
+        clearPages()
+        onPlaylistItemsChanged()
+    }
+
+    /**
+     * Drops all resident and pending pages, re-reading the [PageSource.itemCount]
+     */
+    protected open fun clearPages() {
+        synchronized(pageLock) {
+            sourceGeneration++
+            pendingPages.values.forEach { it.cancel(false) }
+            pendingPages.clear()
+            residentPages.clear()
+
+            sourceItemCount = pageSource?.itemCount ?: 0
+        }
+    }
+
+    /**
+     * Retrieves the items for the specified [page], loading them on the calling
+     * thread if the page isn't resident and isn't already being loaded.
+     *
+     * @param page The index of the page to retrieve
+     * @return The items in the page or `null` if the page couldn't be loaded
+     */
+    protected open fun getPage(page: Int): List<I>? {
+        val task: PageLoadTask
+        var loadOnCaller = false
+
+        synchronized(pageLock) {
+            residentPages[page]?.let {
+                return it
+            }
+
+            task = pendingPages[page] ?: newPageLoadTask(page)?.also {
+                pendingPages[page] = it
+                loadOnCaller = true
+            } ?: return null
+        }
+
+        if (loadOnCaller) {
+            task.run()
+        }
+
+        return try {
+            task.get()
+        } catch (e: Exception) {
+            Log.e(TAG, "Unable to load page $page", e)
+            null
+        }
+    }
+
+    /**
+     * Starts loading the pages surrounding the [position] on the [prefetchExecutor]
+     * if they aren't already resident or being loaded.
+     *
+     * @param position The position to load the surrounding pages for
+     */
+    protected open fun prefetchAround(position: Int) {
+        if (position == BasePlaylistManager.INVALID_POSITION || pageSource == null) {
+            return
+        }
+
+        val currentPage = position / pageSize
+        val lastPage = (itemCount - 1) / pageSize
+
+        // The surrounding pages aren't likely to be played next when shuffled (see prefetchPredicted)
+        val distance = if (isShuffleEnabled) 0 else prefetchDistance
+        val firstPrefetchPage = Math.max(0, currentPage - distance)
+        val lastPrefetchPage = Math.min(lastPage, currentPage + distance)
+
+        for (page in firstPrefetchPage..lastPrefetchPage) {
+            prefetchPage(page)
+        }
+    }
+
+    /**
+     * Starts loading the pages containing the positions that [next] and [previous] will
+     * move to, which aren't next to the [currentPosition] when shuffled or wrapping around.
+     */
+    protected open fun prefetchPredicted() {
+        if (pageSource == null) {
+            return
+        }
+
+        val nextPosition = peekNextPosition()
+        if (nextPosition != BasePlaylistManager.INVALID_POSITION) {
+            prefetchPage(nextPosition / pageSize)
+        }
+
+        val previousPosition = peekPreviousPosition()
+        if (previousPosition != BasePlaylistManager.INVALID_POSITION) {
+            prefetchPage(previousPosition / pageSize)
+        }
+    }
+
+    /**
+     * Starts loading the [page] on the [prefetchExecutor] if it isn't already
+     * resident or being loaded.
+     */
+    protected open fun prefetchPage(page: Int) {
+        val task = synchronized(pageLock) {
+            if (residentPages.containsKey(page) || pendingPages.containsKey(page)) {
+                null
+            } else {
+                newPageLoadTask(page)?.also {
+                    pendingPages[page] = it
+                }
+            }
+        }
+
+        task?.let {
+            try {
+                prefetchExecutor.execute(it)
+            } catch (e: RejectedExecutionException) {
+                Log.w(TAG, "Unable to prefetch page $page", e)
+                it.cancel(false)
+            }
+        }
+    }
+
+    /**
+     * Creates the task to load the [page] from the current [pageSource].  This
+     * should only be called while holding the [pageLock]
+     */
+    protected open fun newPageLoadTask(page: Int): PageLoadTask? {
+        val source = pageSource ?: return null
+        val offset = page * pageSize
+        val size = Math.min(pageSize, sourceItemCount - offset)
+        if (size <= 0) {
+            return null
+        }
+
+        return PageLoadTask(page, sourceGeneration, Callable {
+            source.loadRange(offset, size)
+        })
+    }
+
+    /**
+     * Loads a single page, making it resident on completion as long as the
+     * [pageSource] hasn't changed in the meantime.
+     */
+    protected inner class PageLoadTask(
+            val page: Int,
+            val generation: Int,
+            loader: Callable<List<I>>
+    ) : FutureTask<List<I>>(loader) {
+        override fun done() {
+            synchronized(pageLock) {
+                if (pendingPages[page] === this) {
+                    pendingPages.remove(page)
+                }
+
+                if (isCancelled || generation != sourceGeneration) {
+                    return
+                }
+
+                try {
+                    residentPages[page] = get()
+                } catch (e: ExecutionException) {
+                    Log.e(TAG, "Unable to load page $page", e.cause)
+                }
+            }
+        }
+    }
+}
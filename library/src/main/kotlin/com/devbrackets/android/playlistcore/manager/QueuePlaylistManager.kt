@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.manager
+
+import android.app.Application
+import android.app.Service
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.api.PlaylistItem
+import com.devbrackets.android.playlistcore.listener.QueueChangeListener
+import com.devbrackets.android.playlistcore.util.IndexedTreap
+import com.devbrackets.android.playlistcore.util.LongIntMap
+import com.devbrackets.android.playlistcore.util.NodeShuffleOrder
+import com.devbrackets.android.playlistcore.util.ShuffleOrder
+import com.devbrackets.android.playlistcore.util.WeakListenerRegistry
+
+/**
+ * An implementation of the [BasePlaylistManager] that supports editing the
+ * items while they are being played.  Inserting, removing, moving and finding
+ * the position of items are all O(log n), the [currentPosition] follows the
+ * current item across edits, and the changes are reported to any
+ * [QueueChangeListener]s as ranges so they can be applied incrementally.
+ *
+ * If the current item is removed then the [currentPosition] will reference
+ * the item that took its place (or [BasePlaylistManager.INVALID_POSITION] if
+ * there isn't one); the playback of the removed item won't be changed.
+ *
+ * When shuffle is enabled the shuffled order follows the items across edits (see
+ * [NodeShuffleOrder]), so [previous] still returns to the items played before an edit
+ * and inserted items are added to the items that haven't been played yet.
+ *
+ * {@inheritDoc}
+ */
+open class QueuePlaylistManager<I : PlaylistItem>(application: Application, mediaServiceClass: Class<out Service>) :
+        BasePlaylistManager<I>(application, mediaServiceClass) {
+    protected val queue = IndexedTreap<I>()
+
+    /**
+     * The node in the [queue] for an item id.  This is only guaranteed to be populated
+     * for ids that are unique in the queue (see [idCounts])
+     */
+    protected val idNodes = LongIntMap(missingValue = IndexedTreap.NO_NODE)
+    protected val idCounts = LongIntMap(missingValue = 0)
+
+    /**
+     * The node in the [queue] that represents the [currentPosition]
+     */
+    protected var currentNode = IndexedTreap.NO_NODE
+
+    protected val queueListeners = WeakListenerRegistry<QueueChangeListener>()
+
+    override val itemCount: Int
+        get() = queue.size
+
+    override var currentPosition: Int
+        get() = super.currentPosition
+        set(value) {
+            super.currentPosition = value
+
+            val position = super.currentPosition
+            currentNode = if (position != BasePlaylistManager.INVALID_POSITION) queue.nodeAt(position) else IndexedTreap.NO_NODE
+        }
+
+    override fun getItem(@IntRange(from = 0) position: Int): I? {
+        if (position in 0 until itemCount) {
+            return queue[position]
+        }
+
+        return null
+    }
+
+    override fun getPositionForItem(itemId: Long): Int {
+        when (idCounts[itemId]) {
+            0 -> return BasePlaylistManager.INVALID_POSITION
+            1 -> {
+                val node = idNodes[itemId]
+                if (node != IndexedTreap.NO_NODE) {
+                    return queue.positionOf(node)
+                }
+            }
+        }
+
+        // The item id isn't unique, or the unique node hasn't been determined yet
+        queue.forEachIndexed { position, item ->
+            if (item.id == itemId) {
+                if (idCounts[itemId] == 1) {
+                    idNodes.put(itemId, queue.nodeAt(position))
+                }
+
+                return position
+            }
+        }
+
+        return BasePlaylistManager.INVALID_POSITION
+    }
+
+    /**
+     * A utility method to allow for single line implementations to start playing the media
+     * item as specified by the passed parameters.
+     *
+     * @param items The list of items to play
+     * @param startPosition The position in the playlistItems to start playback
+     * @param playbackPosition The playback position in the item located at `startPosition` to start at in milliseconds
+     * @param startPaused True if the media item should start paused instead of playing
+     */
+    open fun play(items: List<I>?, @IntRange(from = 0) startPosition: Int, @IntRange(from = 0) playbackPosition: Int, startPaused: Boolean) {
+        setParameters(items, startPosition)
+        play(playbackPosition.toLong(), startPaused)
+    }
+
+    /**
+     * Replaces the items in the queue.  This will be reported to the [QueueChangeListener]s
+     * as a removal of all the previous items followed by an insertion of the new items.
+     *
+     * @param items The List of items to play
+     * @param startPosition The position in the list to start playback with
+     */
+    open fun setParameters(items: List<I>?, @IntRange(from = 0) startPosition: Int) {
+        val previousCount = itemCount
+
+        // The shuffle order references the nodes of the previous items so it's re-created for the new ones
+        val shuffled = shuffleOrder != null
+        shuffleOrder = null
+
+        queue.clear()
+        idNodes.clear()
+        idCounts.clear()
+        items?.forEach {
+            addNode(queue.size, it)
+        }
+
+        currentPosition = startPosition
+        id = BasePlaylistManager.INVALID_ID
+        if (shuffled) {
+            createShuffleOrder()
+        }
+
+        playlistHandler?.onPlaylistChanged()
+
+        if (previousCount > 0) {
+            notifyQueueListeners { it.onItemsRemoved(0, previousCount) }
+        }
+
+        if (itemCount > 0) {
+            notifyQueueListeners { it.onItemsInserted(0, itemCount) }
+        }
+    }
+
+    /**
+     * Adds the [item] to the end of the queue
+     */
+    open fun add(item: I) {
+        insert(itemCount, listOf(item))
+    }
+
+    /**
+     * Adds the [items] to the end of the queue
+     */
+    open fun addAll(items: List<I>) {
+        insert(itemCount, items)
+    }
+
+    /**
+     * Inserts the [item] directly after the current item so that it
+     * will be played next
+     */
+    open fun playNext(item: I) {
+        val position = if (currentPosition == BasePlaylistManager.INVALID_POSITION) 0 else currentPosition + 1
+        insert(position, listOf(item))
+    }
+
+    /**
+     * Inserts the [item] at the [position] in the queue
+     */
+    open fun insert(@IntRange(from = 0) position: Int, item: I) {
+        insert(position, listOf(item))
+    }
+
+    /**
+     * Inserts the [items] in to the queue so that the first one is located at
+     * the [position]
+     */
+    open fun insert(@IntRange(from = 0) position: Int, items: List<I>) {
+        if (position < 0 || position > itemCount) {
+            throw IndexOutOfBoundsException("Position $position is out of bounds for size $itemCount")
+        }
+
+        if (items.isEmpty()) {
+            return
+        }
+
+        val order = shuffleOrder as? NodeShuffleOrder
+        items.forEachIndexed { index, item ->
+            val node = addNode(position + index, item)
+            order?.insert(node)
+        }
+
+        onQueueChanged()
+        notifyQueueListeners { it.onItemsInserted(position, items.size) }
+    }
+
+    /**
+     * Removes the [count] items starting at the [position] from the queue
+     */
+    @JvmOverloads
+    open fun remove(@IntRange(from = 0) position: Int, @IntRange(from = 1) count: Int = 1) {
+        if (position < 0 || count < 0 || position + count > itemCount) {
+            throw IndexOutOfBoundsException("Range [$position, ${position + count}) is out of bounds for size $itemCount")
+        }
+
+        if (count == 0) {
+            return
+        }
+
+        var removedCurrent = false
+        queue.remove(position, count) { node ->
+            removedCurrent = removedCurrent || node == currentNode
+            removeNodeId(node)
+            removeShuffleNode(node)
+        }
+
+        if (removedCurrent) {
+            currentNode = IndexedTreap.NO_NODE
+            currentPosition = if (position < itemCount) position else BasePlaylistManager.INVALID_POSITION
+        }
+
+        onQueueChanged()
+        notifyQueueListeners { it.onItemsRemoved(position, count) }
+    }
+
+    /**
+     * Moves the [count] items starting at the [fromPosition] so that the first of them
+     * is located at the [toPosition] after the move (e.g. for drag-to-reorder)
+     */
+    @JvmOverloads
+    open fun move(@IntRange(from = 0) fromPosition: Int, @IntRange(from = 0) toPosition: Int, @IntRange(from = 1) count: Int = 1) {
+        if (fromPosition < 0 || count < 0 || fromPosition + count > itemCount || toPosition < 0 || toPosition + count > itemCount) {
+            throw IndexOutOfBoundsException("Unable to move [$fromPosition, ${fromPosition + count}) to $toPosition for size $itemCount")
+        }
+
+        if (fromPosition == toPosition || count == 0) {
+            return
+        }
+
+        queue.move(fromPosition, toPosition, count)
+
+        onQueueChanged()
+        notifyQueueListeners { it.onItemsMoved(fromPosition, toPosition, count) }
+    }
+
+    /**
+     * Registers the listener to be notified of incremental changes to the queue
+     *
+     * @param listener The listener to register
+     */
+    open fun registerQueueListener(listener: QueueChangeListener) {
+        queueListeners.add(listener)
+    }
+
+    /**
+     * UnRegisters the specified listener.  This should only be called for listeners
+     * that have been registered with [registerQueueListener]
+     *
+     * @param listener The listener to unregister
+     */
+    open fun unRegisterQueueListener(listener: QueueChangeListener) {
+        queueListeners.remove(listener)
+    }
+
+    protected inline fun notifyQueueListeners(handler: (QueueChangeListener) -> Boolean): Boolean {
+        return queueListeners.notify(handler)
+    }
+
+    /**
+     * Updates the [currentPosition] to follow the [currentNode] after the
+     * queue has been modified, then informs the [playlistHandler] of the change.
+     * The [shuffleOrder] has already been updated for the edit so it isn't re-created.
+     */
+    protected open fun onQueueChanged() {
+        if (currentNode != IndexedTreap.NO_NODE) {
+            currentPosition = queue.positionOf(currentNode)
+        }
+
+        playlistHandler?.onPlaylistChanged()
+    }
+
+    override fun newShuffleOrder(): ShuffleOrder {
+        return NodeShuffleOrder(queue, shuffleSeed)
+    }
+
+    /**
+     * Removes the [node] from the [shuffleOrder], keeping the [shuffleSlot]
+     * on the current item when an earlier slot is removed
+     */
+    private fun removeShuffleNode(node: Int) {
+        val order = shuffleOrder as? NodeShuffleOrder ?: return
+        val slot = order.remove(node)
+        if (slot != -1 && slot < shuffleSlot) {
+            shuffleSlot--
+        }
+    }
+
+    private fun addNode(position: Int, item: I): Int {
+        val node = queue.insert(position, item)
+        if (idCounts.put(item.id, idCounts[item.id] + 1) == 0) {
+            idNodes.put(item.id, node)
+        }
+
+        return node
+    }
+
+    private fun removeNodeId(node: Int) {
+        val itemId = queue.valueOf(node).id
+        val count = idCounts[itemId] - 1
+
+        if (count <= 0) {
+            idCounts.remove(itemId)
+            idNodes.remove(itemId)
+            return
+        }
+
+        idCounts.put(itemId, count)
+        if (idNodes[itemId] == node) {
+            idNodes.remove(itemId)
+        }
+    }
+}
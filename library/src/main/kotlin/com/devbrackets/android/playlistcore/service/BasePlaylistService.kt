@@ -159,6 +159,7 @@ abstract class BasePlaylistService<I : PlaylistItem, out M : BasePlaylistManager
             RemoteActions.ACTION_STOP -> playlistHandler.stop()
             RemoteActions.ACTION_SEEK_STARTED -> playlistHandler.startSeek()
             RemoteActions.ACTION_SEEK_ENDED -> playlistHandler.seek(extras?.getLong(RemoteActions.ACTION_EXTRA_SEEK_POSITION, 0) ?: 0)
+            RemoteActions.ACTION_SCRUB -> playlistHandler.scrub(extras?.getLong(RemoteActions.ACTION_EXTRA_SEEK_POSITION, 0) ?: 0)
 
             else -> return false
         }
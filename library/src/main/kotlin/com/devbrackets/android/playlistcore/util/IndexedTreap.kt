@@ -0,0 +1,380 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import androidx.annotation.IntRange
+import java.util.Random
+
+/**
+ * An implicit treap (an order-statistic tree keyed by position) that supports
+ * inserting, removing and moving ranges of values as well as looking up the
+ * position of a value in O(log n).
+ *
+ * Values are referenced by a stable `node` handle that is returned when they
+ * are inserted and remains valid until the value is removed, allowing callers
+ * to track a value across edits with [positionOf].  The nodes are stored in
+ * primitive arrays to avoid a per-value object allocation.
+ *
+ * This class is NOT thread safe.
+ */
+class IndexedTreap<T> @JvmOverloads constructor(initialCapacity: Int = DEFAULT_CAPACITY) {
+    companion object {
+        private const val DEFAULT_CAPACITY = 16
+
+        /**
+         * Represents the absence of a node
+         */
+        const val NO_NODE = -1
+    }
+
+    private val random = Random()
+
+    private var values = arrayOfNulls<Any>(initialCapacity)
+    private var left = IntArray(initialCapacity)
+    private var right = IntArray(initialCapacity)
+    private var parent = IntArray(initialCapacity)
+    private var sizes = IntArray(initialCapacity)
+    private var priorities = IntArray(initialCapacity)
+
+    private var root = NO_NODE
+    private var allocatedNodes = 0
+    private var freeNode = NO_NODE
+
+    /**
+     * The roots of the two trees produced by the most recent [split]
+     */
+    private var splitFirst = NO_NODE
+    private var splitSecond = NO_NODE
+
+    /**
+     * The number of values contained in the treap
+     */
+    val size: Int
+        get() = sizeOf(root)
+
+    /**
+     * Retrieves the value at the [position]
+     */
+    @Suppress("UNCHECKED_CAST")
+    operator fun get(@IntRange(from = 0) position: Int): T {
+        return values[nodeAt(position)] as T
+    }
+
+    /**
+     * Retrieves the value referenced by the [node] handle
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun valueOf(node: Int): T {
+        return values[node] as T
+    }
+
+    /**
+     * Finds the node handle for the value at the [position]
+     */
+    fun nodeAt(@IntRange(from = 0) position: Int): Int {
+        if (position < 0 || position >= size) {
+            throw IndexOutOfBoundsException("Position $position is out of bounds for size $size")
+        }
+
+        var node = root
+        var remaining = position
+        while (true) {
+            val leftSize = sizeOf(left[node])
+            node = when {
+                remaining < leftSize -> left[node]
+                remaining == leftSize -> return node
+                else -> {
+                    remaining -= leftSize + 1
+                    right[node]
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines the current position of the value referenced by the [node] handle
+     */
+    fun positionOf(node: Int): Int {
+        var position = sizeOf(left[node])
+        var current = node
+
+        while (parent[current] != NO_NODE) {
+            val parentNode = parent[current]
+            if (right[parentNode] == current) {
+                position += sizeOf(left[parentNode]) + 1
+            }
+
+            current = parentNode
+        }
+
+        return position
+    }
+
+    /**
+     * Inserts the [value] so that it will be located at the [position]
+     *
+     * @return The node handle that references the value
+     */
+    fun insert(@IntRange(from = 0) position: Int, value: T): Int {
+        val node = allocateNode(value)
+        split(root, position)
+        root = merge(merge(splitFirst, node), splitSecond)
+        parent[root] = NO_NODE
+
+        return node
+    }
+
+    /**
+     * Removes the [count] values starting at the [position]
+     *
+     * @param onRemoved Called for each node that is removed, before it is released
+     */
+    inline fun remove(@IntRange(from = 0) position: Int, @IntRange(from = 1) count: Int, onRemoved: (node: Int) -> Unit) {
+        for (i in 0 until count) {
+            val node = nodeAt(position)
+            onRemoved(node)
+            removeNode(node)
+        }
+    }
+
+    /**
+     * Removes the value referenced by the [node] handle, after which the
+     * handle is no longer valid.
+     */
+    fun removeNode(node: Int) {
+        val replacement = merge(left[node], right[node])
+        val parentNode = parent[node]
+
+        if (replacement != NO_NODE) {
+            parent[replacement] = parentNode
+        }
+
+        if (parentNode == NO_NODE) {
+            root = replacement
+        } else {
+            if (left[parentNode] == node) {
+                left[parentNode] = replacement
+            } else {
+                right[parentNode] = replacement
+            }
+
+            var current = parentNode
+            while (current != NO_NODE) {
+                update(current)
+                current = parent[current]
+            }
+        }
+
+        releaseNode(node)
+    }
+
+    /**
+     * Moves the [count] values starting at [fromPosition] so that the first of
+     * them is located at [toPosition] once the move has completed.
+     */
+    fun move(@IntRange(from = 0) fromPosition: Int, @IntRange(from = 0) toPosition: Int, @IntRange(from = 1) count: Int) {
+        if (fromPosition == toPosition || count <= 0) {
+            return
+        }
+
+        split(root, fromPosition)
+        val before = splitFirst
+        split(splitSecond, count)
+        val moved = splitFirst
+        split(merge(before, splitSecond), toPosition)
+
+        root = merge(merge(splitFirst, moved), splitSecond)
+        if (root != NO_NODE) {
+            parent[root] = NO_NODE
+        }
+    }
+
+    /**
+     * Removes all values from the treap
+     */
+    fun clear() {
+        values.fill(null, 0, allocatedNodes)
+        root = NO_NODE
+        allocatedNodes = 0
+        freeNode = NO_NODE
+    }
+
+    /**
+     * Iterates over the values in positional order
+     */
+    inline fun forEachIndexed(action: (position: Int, value: T) -> Unit) {
+        var position = 0
+        var node = firstNode()
+
+        while (node != NO_NODE) {
+            action(position++, valueOf(node))
+            node = nextNode(node)
+        }
+    }
+
+    /**
+     * Finds the node handle for the first value, or [NO_NODE] if the treap is empty
+     */
+    fun firstNode(): Int {
+        var node = root
+        while (node != NO_NODE && left[node] != NO_NODE) {
+            node = left[node]
+        }
+
+        return node
+    }
+
+    /**
+     * Finds the node handle for the value following the [node], or [NO_NODE]
+     * if it references the last value
+     */
+    fun nextNode(node: Int): Int {
+        var current = right[node]
+        if (current != NO_NODE) {
+            while (left[current] != NO_NODE) {
+                current = left[current]
+            }
+
+            return current
+        }
+
+        current = node
+        var parentNode = parent[current]
+        while (parentNode != NO_NODE && right[parentNode] == current) {
+            current = parentNode
+            parentNode = parent[current]
+        }
+
+        return parentNode
+    }
+
+    /**
+     * Splits the tree rooted at [node] so that the first [count] values are in the
+     * tree rooted at [splitFirst] and the remaining are in the tree rooted at [splitSecond]
+     */
+    private fun split(node: Int, count: Int) {
+        if (node == NO_NODE) {
+            splitFirst = NO_NODE
+            splitSecond = NO_NODE
+            return
+        }
+
+        val leftSize = sizeOf(left[node])
+        if (count <= leftSize) {
+            split(left[node], count)
+            setLeft(node, splitSecond)
+            update(node)
+
+            detach(splitFirst)
+            detach(node)
+            splitSecond = node
+        } else {
+            split(right[node], count - leftSize - 1)
+            setRight(node, splitFirst)
+            update(node)
+
+            detach(splitSecond)
+            detach(node)
+            splitFirst = node
+        }
+    }
+
+    private fun merge(first: Int, second: Int): Int {
+        if (first == NO_NODE) {
+            return second
+        }
+
+        if (second == NO_NODE) {
+            return first
+        }
+
+        return if (priorities[first] > priorities[second]) {
+            setRight(first, merge(right[first], second))
+            update(first)
+            first
+        } else {
+            setLeft(second, merge(first, left[second]))
+            update(second)
+            second
+        }
+    }
+
+    private fun setLeft(node: Int, child: Int) {
+        left[node] = child
+        if (child != NO_NODE) {
+            parent[child] = node
+        }
+    }
+
+    private fun setRight(node: Int, child: Int) {
+        right[node] = child
+        if (child != NO_NODE) {
+            parent[child] = node
+        }
+    }
+
+    private fun detach(node: Int) {
+        if (node != NO_NODE) {
+            parent[node] = NO_NODE
+        }
+    }
+
+    private fun update(node: Int) {
+        sizes[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1
+    }
+
+    private fun sizeOf(node: Int): Int {
+        return if (node == NO_NODE) 0 else sizes[node]
+    }
+
+    private fun allocateNode(value: T): Int {
+        val node = if (freeNode != NO_NODE) {
+            freeNode.also { freeNode = right[it] }
+        } else {
+            if (allocatedNodes == values.size) {
+                grow()
+            }
+
+            allocatedNodes++
+        }
+
+        values[node] = value
+        left[node] = NO_NODE
+        right[node] = NO_NODE
+        parent[node] = NO_NODE
+        sizes[node] = 1
+        priorities[node] = random.nextInt()
+
+        return node
+    }
+
+    private fun releaseNode(node: Int) {
+        values[node] = null
+        right[node] = freeNode
+        freeNode = node
+    }
+
+    private fun grow() {
+        val capacity = Math.max(DEFAULT_CAPACITY, values.size * 2)
+        values = values.copyOf(capacity)
+        left = left.copyOf(capacity)
+        right = right.copyOf(capacity)
+        parent = parent.copyOf(capacity)
+        sizes = sizes.copyOf(capacity)
+        priorities = priorities.copyOf(capacity)
+    }
+}
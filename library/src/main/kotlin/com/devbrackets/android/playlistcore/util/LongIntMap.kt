@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+/**
+ * A simple open-addressing hash map from primitive `long` keys to primitive
+ * `int` values.  This avoids the boxing and per-entry allocations of a
+ * `HashMap<Long, Int>` which matters when indexing very large playlists.
+ *
+ * This class is NOT thread safe.
+ *
+ * @param expectedSize The number of entries the map should be able to hold without resizing
+ * @param missingValue The value returned from [get] when a key isn't contained in the map
+ */
+class LongIntMap @JvmOverloads constructor(expectedSize: Int = DEFAULT_CAPACITY, val missingValue: Int = -1) {
+    companion object {
+        private const val DEFAULT_CAPACITY = 16
+        private const val LOAD_FACTOR = 0.5f
+
+        /**
+         * The key used to represent an empty slot in [keys]; the entry for
+         * this key is stored separately in [freeKeyValue]
+         */
+        private const val FREE_KEY = 0L
+    }
+
+    private var keys: LongArray
+    private var values: IntArray
+    private var mask: Int
+    private var resizeThreshold: Int
+
+    private var hasFreeKey = false
+    private var freeKeyValue = missingValue
+
+    /**
+     * The number of entries currently contained in the map
+     */
+    var size = 0
+        private set
+
+    init {
+        val capacity = capacityFor(expectedSize)
+        keys = LongArray(capacity)
+        values = IntArray(capacity)
+        mask = capacity - 1
+        resizeThreshold = (capacity * LOAD_FACTOR).toInt()
+    }
+
+    /**
+     * Retrieves the value associated with the [key]
+     *
+     * @param key The key to retrieve the value for
+     * @return The associated value or [missingValue]
+     */
+    operator fun get(key: Long): Int {
+        if (key == FREE_KEY) {
+            return if (hasFreeKey) freeKeyValue else missingValue
+        }
+
+        var index = indexFor(key)
+        while (true) {
+            val storedKey = keys[index]
+            if (storedKey == FREE_KEY) {
+                return missingValue
+            }
+
+            if (storedKey == key) {
+                return values[index]
+            }
+
+            index = (index + 1) and mask
+        }
+    }
+
+    fun containsKey(key: Long): Boolean {
+        if (key == FREE_KEY) {
+            return hasFreeKey
+        }
+
+        var index = indexFor(key)
+        while (true) {
+            val storedKey = keys[index]
+            if (storedKey == FREE_KEY) {
+                return false
+            }
+
+            if (storedKey == key) {
+                return true
+            }
+
+            index = (index + 1) and mask
+        }
+    }
+
+    /**
+     * Associates the [value] with the [key], replacing any existing value
+     *
+     * @return The previously associated value or [missingValue]
+     */
+    fun put(key: Long, value: Int): Int {
+        if (key == FREE_KEY) {
+            val previous = if (hasFreeKey) freeKeyValue else missingValue
+            if (!hasFreeKey) {
+                hasFreeKey = true
+                size++
+            }
+
+            freeKeyValue = value
+            return previous
+        }
+
+        var index = indexFor(key)
+        while (true) {
+            val storedKey = keys[index]
+            if (storedKey == FREE_KEY) {
+                keys[index] = key
+                values[index] = value
+
+                if (++size >= resizeThreshold) {
+                    resize(keys.size * 2)
+                }
+
+                return missingValue
+            }
+
+            if (storedKey == key) {
+                val previous = values[index]
+                values[index] = value
+                return previous
+            }
+
+            index = (index + 1) and mask
+        }
+    }
+
+    /**
+     * Removes the entry for the [key]
+     *
+     * @return The value that was associated with the key or [missingValue]
+     */
+    fun remove(key: Long): Int {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return missingValue
+            }
+
+            hasFreeKey = false
+            size--
+            return freeKeyValue.also { freeKeyValue = missingValue }
+        }
+
+        var index = indexFor(key)
+        while (true) {
+            val storedKey = keys[index]
+            if (storedKey == FREE_KEY) {
+                return missingValue
+            }
+
+            if (storedKey == key) {
+                val previous = values[index]
+                shiftKeys(index)
+                size--
+                return previous
+            }
+
+            index = (index + 1) and mask
+        }
+    }
+
+    /**
+     * Removes all entries from the map, retaining the current capacity
+     */
+    fun clear() {
+        keys.fill(FREE_KEY)
+        hasFreeKey = false
+        freeKeyValue = missingValue
+        size = 0
+    }
+
+    /**
+     * Removes all entries from the map and makes sure there is enough capacity
+     * to hold [expectedSize] entries without resizing.
+     */
+    fun clear(expectedSize: Int) {
+        val capacity = capacityFor(expectedSize)
+        if (capacity > keys.size) {
+            keys = LongArray(capacity)
+            values = IntArray(capacity)
+            mask = capacity - 1
+            resizeThreshold = (capacity * LOAD_FACTOR).toInt()
+        } else {
+            keys.fill(FREE_KEY)
+        }
+
+        hasFreeKey = false
+        freeKeyValue = missingValue
+        size = 0
+    }
+
+    /**
+     * Removes the entry at [removedIndex] by shifting back any following entries
+     * in the probe sequence so that lookups don't require tombstones.
+     */
+    private fun shiftKeys(removedIndex: Int) {
+        var last = removedIndex
+        var current = (last + 1) and mask
+
+        while (true) {
+            val key = keys[current]
+            if (key == FREE_KEY) {
+                keys[last] = FREE_KEY
+                return
+            }
+
+            // Only move the entry if its ideal slot isn't between the gap and its current slot
+            val ideal = indexFor(key)
+            val moveEntry = if (last <= current) {
+                last >= ideal || ideal > current
+            } else {
+                last >= ideal && ideal > current
+            }
+
+            if (moveEntry) {
+                keys[last] = key
+                values[last] = values[current]
+                last = current
+            }
+
+            current = (current + 1) and mask
+        }
+    }
+
+    private fun resize(newCapacity: Int) {
+        val oldKeys = keys
+        val oldValues = values
+
+        keys = LongArray(newCapacity)
+        values = IntArray(newCapacity)
+        mask = newCapacity - 1
+        resizeThreshold = (newCapacity * LOAD_FACTOR).toInt()
+
+        for (i in oldKeys.indices) {
+            val key = oldKeys[i]
+            if (key == FREE_KEY) {
+                continue
+            }
+
+            var index = indexFor(key)
+            while (keys[index] != FREE_KEY) {
+                index = (index + 1) and mask
+            }
+
+            keys[index] = key
+            values[index] = oldValues[i]
+        }
+    }
+
+    private fun indexFor(key: Long): Int {
+        // Mixes the bits so that sequential ids don't cluster (see MurmurHash3 fmix64)
+        var hash = key xor (key ushr 33)
+        hash *= -0xae502812aa7333L
+        hash = hash xor (hash ushr 33)
+        return hash.toInt() and mask
+    }
+
+    private fun capacityFor(expectedSize: Int): Int {
+        val required = Math.max(DEFAULT_CAPACITY, (expectedSize / LOAD_FACTOR).toInt() + 1)
+        return Integer.highestOneBit(required - 1) shl 1
+    }
+}
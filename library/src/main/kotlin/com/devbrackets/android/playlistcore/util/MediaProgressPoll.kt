@@ -16,6 +16,7 @@
 
 package com.devbrackets.android.playlistcore.util
 
+import android.os.Handler
 import androidx.annotation.IntRange
 import android.util.Log
 import com.devbrackets.android.playlistcore.api.MediaPlayerApi
@@ -27,16 +28,45 @@ import com.devbrackets.android.playlistcore.listener.ProgressListener
  * A utility used to poll the progress of the currently playing media.
  * This will allows listeners to be informed of progress updates for display
  * or storage.
+ *
+ * @param handler The [Handler] to poll the progress on, by default the thread creating the poll is used
  */
-open class MediaProgressPoll<I : PlaylistItem> {
+open class MediaProgressPoll<I : PlaylistItem> @JvmOverloads constructor(handler: Handler? = null) {
     companion object {
         private val TAG = "MediaProgressPoll"
     }
 
-    protected var pollRepeater = Repeater()
-    protected var overriddenPositionStopWatch = StopWatch()
+    protected var pollRepeater = handler?.let { Repeater(it) } ?: Repeater()
+    protected var overriddenPositionStopWatch = handler?.let { StopWatch(it) } ?: StopWatch()
     protected val currentMediaProgress = MediaProgress(0, 0, 0)
 
+    /**
+     * `true` once [currentMediaProgress] has been emitted, used to avoid
+     * emitting the same progress repeatedly (e.g. while buffering)
+     */
+    protected var progressEmitted = false
+
+    /**
+     * Determines if the poll has been started with [start]
+     */
+    var isRunning = false
+        private set
+
+    /**
+     * Specifies if the progress should be emitted while the poll is running.  Disabling
+     * this stops the periodic polling without stopping the tracking of the overridden position,
+     * which is used when nothing is interested in the progress.
+     */
+    var pollingEnabled = true
+        set(value) {
+            field = value
+            if (value && isRunning) {
+                pollRepeater.start()
+            } else {
+                pollRepeater.stop()
+            }
+        }
+
     /**
      * Specifies the listener to be informed of progress updates
      * at periodic intervals specified with [.setProgressPollDelay]
@@ -45,6 +75,16 @@ open class MediaProgressPoll<I : PlaylistItem> {
 
     protected var mediaPlayerApi: MediaPlayerApi<I>? = null
 
+    /**
+     * The source to read the progress from instead of querying the [MediaPlayerApi]
+     * on every poll (e.g. a mirror of the player state).  This is only used while it
+     * provides the state of the same [MediaPlayerApi] as the poll.
+     */
+    var stateMirror: MediaStateSource<I>? = null
+
+    protected val activeStateMirror: MediaStateSource<I>?
+        get() = stateMirror?.takeIf { mediaPlayerApi != null && it.mediaPlayer === mediaPlayerApi }
+
     protected var overridePosition = false
         /**
          * Sets if the audio position should be overridden, allowing the time to be restarted at will.  This
@@ -104,6 +144,10 @@ open class MediaProgressPoll<I : PlaylistItem> {
                 return positionOffset + overriddenPositionStopWatch.time
             }
 
+            activeStateMirror?.let {
+                return it.currentPosition
+            }
+
             return mediaPlayerApi?.currentPosition ?: 0
         }
 
@@ -122,6 +166,10 @@ open class MediaProgressPoll<I : PlaylistItem> {
                 return overriddenDuration
             }
 
+            activeStateMirror?.let {
+                return it.duration
+            }
+
             return mediaPlayerApi?.duration ?: 0
         }
 
@@ -131,7 +179,7 @@ open class MediaProgressPoll<I : PlaylistItem> {
      */
     val bufferPercentage: Int
         @IntRange(from = 0, to = MediaProgress.MAX_BUFFER_PERCENT.toLong())
-        get() = mediaPlayerApi?.bufferedPercent ?: 0
+        get() = activeStateMirror?.bufferedPercent ?: mediaPlayerApi?.bufferedPercent ?: 0
 
     init {
         pollRepeater.setRepeatListener(OnRepeat())
@@ -148,7 +196,10 @@ open class MediaProgressPoll<I : PlaylistItem> {
             return
         }
 
-        pollRepeater.start()
+        isRunning = true
+        if (pollingEnabled) {
+            pollRepeater.start()
+        }
 
         if (overridePosition) {
             overriddenPositionStopWatch.start()
@@ -159,6 +210,7 @@ open class MediaProgressPoll<I : PlaylistItem> {
      * Stops polling for progress
      */
     fun stop() {
+        isRunning = false
         pollRepeater.stop()
         overriddenPositionStopWatch.stop()
     }
@@ -174,6 +226,7 @@ open class MediaProgressPoll<I : PlaylistItem> {
 
         positionOffset = 0
         overriddenDuration = 0
+        progressEmitted = false
     }
 
     /**
@@ -222,12 +275,22 @@ open class MediaProgressPoll<I : PlaylistItem> {
 
     /**
      * Performs the actual periodic polling of the progress and informing the
-     * listener.  If the listener has not been specified, or was set to null, then
-     * the polling will be stopped.
+     * listener.  The listener is only informed when the progress has changed since
+     * the last update.  If the listener has not been specified, or was set to null,
+     * then the polling will be stopped.
      */
     protected inner class OnRepeat : Repeater.RepeatListener {
         override fun onRepeat() {
-            currentMediaProgress.update(currentPosition, bufferPercentage, duration)
+            val position = currentPosition
+            val bufferPercent = bufferPercentage
+            val mediaDuration = duration
+            if (progressEmitted && currentMediaProgress.position == position && currentMediaProgress.bufferPercent == bufferPercent && currentMediaProgress.duration == mediaDuration) {
+                return
+            }
+
+            currentMediaProgress.update(position, bufferPercent, mediaDuration)
+            progressEmitted = true
+
             if (progressListener != null) {
                 progressListener?.onProgressUpdated(currentMediaProgress)
             } else {
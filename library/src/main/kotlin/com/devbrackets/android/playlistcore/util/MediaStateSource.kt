@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.api.MediaPlayerApi
+import com.devbrackets.android.playlistcore.api.PlaylistItem
+import com.devbrackets.android.playlistcore.data.MediaProgress
+
+/**
+ * Provides the progress of a [MediaPlayerApi] without the [MediaProgressPoll]
+ * needing to query the player directly (e.g. a cached copy of its state)
+ */
+interface MediaStateSource<I : PlaylistItem> {
+    /**
+     * The [MediaPlayerApi] the state is provided for
+     */
+    val mediaPlayer: MediaPlayerApi<I>?
+
+    /**
+     * The position of the [mediaPlayer] in milliseconds
+     */
+    @get:IntRange(from = 0)
+    val currentPosition: Long
+
+    /**
+     * The duration of the media in the [mediaPlayer] in milliseconds
+     */
+    @get:IntRange(from = 0)
+    val duration: Long
+
+    /**
+     * The buffered percent of the media in the [mediaPlayer]
+     */
+    @get:IntRange(from = 0, to = MediaProgress.MAX_BUFFER_PERCENT.toLong())
+    val bufferedPercent: Int
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import androidx.annotation.IntRange
+import java.util.Random
+
+/**
+ * A [ShuffleOrder] for the values in an [IndexedTreap] that is keyed by the treap's
+ * node handles instead of positions, so that it follows the values as they're
+ * edited instead of needing to be re-created.  The treap must inform the order
+ * of the nodes that are inserted and removed with [insert] and [remove]; moves
+ * don't affect the order.
+ *
+ * Moving through the order and editing it are O(log n).  The undrawn nodes are
+ * drawn from a pool at random, so unlike the [PositionShuffleOrder] the order
+ * isn't deterministic for a given `seed` once the treap has been edited.
+ *
+ * This class is NOT thread safe.
+ *
+ * @param treap The treap containing the values to shuffle
+ * @param seed The seed to use when drawing the order
+ */
+class NodeShuffleOrder(private val treap: IndexedTreap<*>, seed: Long) : ShuffleOrder {
+    companion object {
+        private const val DEFAULT_CAPACITY = 16
+        private const val NOT_UNDRAWN = -1
+    }
+
+    private val random = Random(seed)
+
+    /**
+     * The drawn slots, in order.  The treap node each slot represents is
+     * stored in the [drawnTreapNodes] for the slot's node
+     */
+    private val drawn = IndexedTreap<Any?>()
+    private var drawnTreapNodes = IntArray(DEFAULT_CAPACITY)
+
+    /**
+     * Maps treap node -> the node in [drawn] for it, or [IndexedTreap.NO_NODE] if it hasn't been drawn
+     */
+    private var drawnNodes = IntArray(DEFAULT_CAPACITY)
+
+    /**
+     * The treap nodes that haven't been drawn yet, and the index of each in
+     * the pool (or [NOT_UNDRAWN]) by treap node
+     */
+    private var undrawn = IntArray(DEFAULT_CAPACITY)
+    private var undrawnCount = 0
+    private var undrawnIndexes = IntArray(DEFAULT_CAPACITY)
+
+    override val size: Int
+        get() = drawn.size + undrawnCount
+
+    override val drawnCount: Int
+        get() = drawn.size
+
+    init {
+        var node = treap.firstNode()
+        while (node != IndexedTreap.NO_NODE) {
+            insert(node)
+            node = treap.nextNode(node)
+        }
+    }
+
+    override fun positionAt(@IntRange(from = 0) slot: Int): Int {
+        while (drawn.size <= slot) {
+            val node = undrawn[random.nextInt(undrawnCount)]
+            removeUndrawn(node)
+            appendDrawn(node)
+        }
+
+        return treap.positionOf(drawnTreapNodes[drawn.nodeAt(slot)])
+    }
+
+    override fun draw(@IntRange(from = 0) position: Int): Int {
+        val node = treap.nodeAt(position)
+        val drawnNode = drawnNodes[node]
+        if (drawnNode != IndexedTreap.NO_NODE) {
+            return drawn.positionOf(drawnNode)
+        }
+
+        removeUndrawn(node)
+        appendDrawn(node)
+        return drawn.size - 1
+    }
+
+    /**
+     * Adds the treap [node] that was inserted to the undrawn slots
+     */
+    fun insert(node: Int) {
+        if (node >= drawnNodes.size) {
+            val capacity = Math.max(node + 1, drawnNodes.size * 2)
+            drawnNodes = drawnNodes.copyOf(capacity)
+            undrawnIndexes = undrawnIndexes.copyOf(capacity)
+        }
+
+        if (undrawnCount == undrawn.size) {
+            undrawn = undrawn.copyOf(undrawn.size * 2)
+        }
+
+        drawnNodes[node] = IndexedTreap.NO_NODE
+        undrawnIndexes[node] = undrawnCount
+        undrawn[undrawnCount++] = node
+    }
+
+    /**
+     * Removes the treap [node] that is being removed from the order, this
+     * must be called before the node is released by the treap
+     *
+     * @return The slot the node was drawn in, or `-1` if it hadn't been drawn
+     */
+    fun remove(node: Int): Int {
+        val drawnNode = drawnNodes[node]
+        if (drawnNode == IndexedTreap.NO_NODE) {
+            removeUndrawn(node)
+            return -1
+        }
+
+        val slot = drawn.positionOf(drawnNode)
+        drawn.removeNode(drawnNode)
+        drawnNodes[node] = IndexedTreap.NO_NODE
+        return slot
+    }
+
+    private fun appendDrawn(node: Int) {
+        val drawnNode = drawn.insert(drawn.size, null)
+        if (drawnNode >= drawnTreapNodes.size) {
+            drawnTreapNodes = drawnTreapNodes.copyOf(Math.max(drawnNode + 1, drawnTreapNodes.size * 2))
+        }
+
+        drawnTreapNodes[drawnNode] = node
+        drawnNodes[node] = drawnNode
+    }
+
+    /**
+     * Removes the [node] from the undrawn pool by replacing it with the last undrawn node
+     */
+    private fun removeUndrawn(node: Int) {
+        val index = undrawnIndexes[node]
+        val last = undrawn[--undrawnCount]
+
+        undrawn[index] = last
+        undrawnIndexes[last] = index
+        undrawnIndexes[node] = NOT_UNDRAWN
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import androidx.annotation.IntRange
+import java.util.Random
+
+/**
+ * A [ShuffleOrder] that is a lazily generated permutation of the positions in a playlist.
+ * Each slot in the order is only drawn (using an incremental Fisher-Yates shuffle) when
+ * it's first requested, so creating an order and moving through it is
+ * allocation free and O(1) per step regardless of the playlist size.
+ *
+ * The order is deterministic for a given [size] and `seed`.  Since the order is based
+ * on positions it can't follow changes to the items, and should be re-created instead.
+ *
+ * This class is NOT thread safe.
+ *
+ * @param size The number of positions in the playlist
+ * @param seed The seed to use when drawing the order
+ */
+class PositionShuffleOrder(@IntRange(from = 0) override val size: Int, seed: Long) : ShuffleOrder {
+    private val random = Random(seed)
+
+    /**
+     * Maps slot -> position + 1, a value of 0 means the slot still
+     * contains the position with the same index
+     */
+    private val order = IntArray(size)
+
+    /**
+     * Maps position -> slot + 1, a value of 0 means the position is
+     * still in the slot with the same index
+     */
+    private val slots = IntArray(size)
+
+    override var drawnCount = 0
+        private set
+
+    override fun positionAt(@IntRange(from = 0) slot: Int): Int {
+        while (drawnCount <= slot) {
+            swap(drawnCount, drawnCount + random.nextInt(size - drawnCount))
+            drawnCount++
+        }
+
+        return rawPosition(slot)
+    }
+
+    /**
+     * Determines the slot that currently contains the [position].  If the
+     * returned slot is greater than or equal to [drawnCount] then the position
+     * hasn't been drawn yet and the slot is subject to change.
+     *
+     * @param position The position in the playlist to find the slot for
+     * @return The slot containing the position
+     */
+    fun slotOf(@IntRange(from = 0) position: Int): Int {
+        val slot = slots[position]
+        return if (slot == 0) position else slot - 1
+    }
+
+    override fun draw(@IntRange(from = 0) position: Int): Int {
+        val slot = slotOf(position)
+        if (slot < drawnCount) {
+            return slot
+        }
+
+        swap(drawnCount, slot)
+        return drawnCount++
+    }
+
+    private fun rawPosition(slot: Int): Int {
+        val position = order[slot]
+        return if (position == 0) slot else position - 1
+    }
+
+    private fun swap(slotA: Int, slotB: Int) {
+        if (slotA == slotB) {
+            return
+        }
+
+        val positionA = rawPosition(slotA)
+        val positionB = rawPosition(slotB)
+
+        order[slotA] = positionB + 1
+        order[slotB] = positionA + 1
+        slots[positionB] = slotA + 1
+        slots[positionA] = slotB + 1
+    }
+}
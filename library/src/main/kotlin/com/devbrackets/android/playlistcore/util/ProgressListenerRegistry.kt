@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import androidx.annotation.IntRange
+import com.devbrackets.android.playlistcore.data.MediaProgress
+import com.devbrackets.android.playlistcore.listener.PrimitiveProgressListener
+import com.devbrackets.android.playlistcore.listener.ProgressListener
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+
+/**
+ * A [WeakListenerRegistry] for progress listeners (e.g. [ProgressListener]) that tracks
+ * the update interval and minimum position change each listener requested.  The fastest
+ * requested interval is exposed with [requestedIntervalMillis] so that progress is only
+ * polled as often as the registered listeners need, and [dispatch] only informs each
+ * listener once its own interval and position delta have passed.
+ *
+ * Dispatching doesn't allocate, so it's safe to call for every progress update.
+ */
+abstract class ProgressListenerRegistry<T : Any> : WeakListenerRegistry<T>() {
+    companion object {
+        /**
+         * The interval requested by listeners that want every progress update
+         */
+        const val DEFAULT_INTERVAL = 0L
+
+        /**
+         * The [requestedIntervalMillis] when there aren't any registered listeners
+         */
+        const val NO_INTERVAL = -1L
+
+        /**
+         * Combines the intervals requested from two registries, returning the
+         * smaller interval or [NO_INTERVAL] if neither has any listeners
+         */
+        @JvmStatic
+        fun combineIntervals(first: Long, second: Long): Long {
+            return when {
+                first == NO_INTERVAL -> second
+                second == NO_INTERVAL -> first
+                else -> Math.min(first, second)
+            }
+        }
+    }
+
+    /**
+     * The smallest interval requested by the registered listeners, [DEFAULT_INTERVAL]
+     * if any listener wants every update, or [NO_INTERVAL] when there aren't any listeners
+     */
+    @Volatile
+    var requestedIntervalMillis = NO_INTERVAL
+        private set
+
+    /**
+     * The smallest interval explicitly requested by the registered listeners, or
+     * [NO_INTERVAL] if none of them requested an interval
+     */
+    @Volatile
+    var smallestIntervalMillis = NO_INTERVAL
+        private set
+
+    /**
+     * The interval (in milliseconds) the progress is being polled at.  Listeners are
+     * delivered progress up to half of this early so that jitter in the polling doesn't
+     * cause a listener with the same interval as the poll to skip every other update.
+     */
+    @Volatile
+    var pollIntervalMillis = 0L
+
+    /**
+     * Registers the [listener] to be informed of progress updates at most every
+     * [intervalMillis] and only when the position has changed by at least
+     * [minPositionDelta] (or the duration or buffer have changed)
+     */
+    fun add(listener: T, @IntRange(from = 0) intervalMillis: Long, @IntRange(from = 0) minPositionDelta: Long) {
+        add(ProgressSubscription(listener, referenceQueue, intervalMillis, minPositionDelta))
+    }
+
+    /**
+     * Informs the registered listeners of the [mediaProgress] that are due for an update
+     * until one of them consumes the event
+     *
+     * @param mediaProgress The progress to inform the listeners of
+     * @param timestamp The monotonic time (in milliseconds) of the [mediaProgress]
+     * @return `true` if the event was consumed
+     */
+    fun dispatch(mediaProgress: MediaProgress, timestamp: Long): Boolean {
+        purge()
+
+        for (reference in references) {
+            val listener = reference.get() ?: continue
+            if (reference is ProgressSubscription<*> && !reference.shouldDeliver(mediaProgress, timestamp, pollIntervalMillis / 2)) {
+                continue
+            }
+
+            if (deliver(listener, mediaProgress)) {
+                return true
+            }
+        }
+
+        return false
+    }
+
+    /**
+     * Informs the [listener] of the [mediaProgress]
+     *
+     * @return `true` if the event was consumed
+     */
+    protected abstract fun deliver(listener: T, mediaProgress: MediaProgress): Boolean
+
+    /**
+     * Called when the [requestedIntervalMillis] has changed
+     */
+    protected open fun onRequestedIntervalChanged(@IntRange(from = NO_INTERVAL) intervalMillis: Long) {
+        // Purposefully left blank
+    }
+
+    override fun onReferencesChanged() {
+        var smallestInterval = NO_INTERVAL
+        var hasListeners = false
+        var defaultInterval = false
+
+        for (reference in references) {
+            if (reference.get() == null) {
+                continue
+            }
+
+            hasListeners = true
+            val interval = (reference as? ProgressSubscription<*>)?.intervalMillis ?: DEFAULT_INTERVAL
+            if (interval <= DEFAULT_INTERVAL) {
+                defaultInterval = true
+            } else if (smallestInterval == NO_INTERVAL || interval < smallestInterval) {
+                smallestInterval = interval
+            }
+        }
+
+        smallestIntervalMillis = smallestInterval
+        val requestedInterval = when {
+            !hasListeners -> NO_INTERVAL
+            defaultInterval -> DEFAULT_INTERVAL
+            else -> smallestInterval
+        }
+
+        if (requestedInterval != requestedIntervalMillis) {
+            requestedIntervalMillis = requestedInterval
+            onRequestedIntervalChanged(requestedInterval)
+        }
+    }
+
+    /**
+     * A weak reference to a progress listener along with the interval and position
+     * delta it requested.  The last delivered values are tracked so that unchanged
+     * progress isn't delivered again.
+     */
+    class ProgressSubscription<T : Any>(
+            listener: T,
+            queue: ReferenceQueue<in T>,
+            @IntRange(from = 0) val intervalMillis: Long,
+            @IntRange(from = 0) val minPositionDelta: Long
+    ) : WeakReference<T>(listener, queue) {
+        private var delivered = false
+        private var lastTimestamp = 0L
+        private var lastPosition = 0L
+        private var lastDuration = 0L
+        private var lastBufferPercent = 0
+
+        /**
+         * Determines if the [mediaProgress] should be delivered to the listener, recording
+         * it as the last delivered progress when it should be
+         *
+         * @param toleranceMillis The amount of time before the [intervalMillis] has passed to deliver the progress at
+         */
+        fun shouldDeliver(mediaProgress: MediaProgress, timestamp: Long, toleranceMillis: Long): Boolean {
+            if (delivered) {
+                if (timestamp - lastTimestamp < intervalMillis - toleranceMillis) {
+                    return false
+                }
+
+                val positionChanged = Math.abs(mediaProgress.position - lastPosition) >= Math.max(1, minPositionDelta)
+                if (!positionChanged && mediaProgress.duration == lastDuration && mediaProgress.bufferPercent == lastBufferPercent) {
+                    return false
+                }
+            }
+
+            delivered = true
+            lastTimestamp = timestamp
+            lastPosition = mediaProgress.position
+            lastDuration = mediaProgress.duration
+            lastBufferPercent = mediaProgress.bufferPercent
+            return true
+        }
+    }
+
+    /**
+     * The [ProgressListenerRegistry] for [ProgressListener]s
+     */
+    open class Listeners : ProgressListenerRegistry<ProgressListener>() {
+        override fun deliver(listener: ProgressListener, mediaProgress: MediaProgress): Boolean {
+            return listener.onProgressUpdated(mediaProgress)
+        }
+    }
+
+    /**
+     * The [ProgressListenerRegistry] for [PrimitiveProgressListener]s
+     */
+    open class PrimitiveListeners : ProgressListenerRegistry<PrimitiveProgressListener>() {
+        override fun deliver(listener: PrimitiveProgressListener, mediaProgress: MediaProgress): Boolean {
+            return listener.onProgressUpdated(mediaProgress.position, mediaProgress.duration, mediaProgress.bufferPercent, mediaProgress.timestamp)
+        }
+    }
+}
@@ -17,16 +17,16 @@
 package com.devbrackets.android.playlistcore.util
 
 import android.os.Handler
-import android.os.HandlerThread
 
 /**
  * A method repeater to easily perform update functions on a timed basis.
+ * The repeats are scheduled at a fixed rate on the shared [TimerWheel] so that
+ * each Repeater doesn't need its own thread.
  * **NOTE:** the duration between repeats may not be exact.  If you require an exact
  * amount of elapsed time use the [StopWatch] instead.
  */
 class Repeater {
     companion object {
-        private val HANDLER_THREAD_NAME = "Repeater_HandlerThread"
         private val DEFAULT_REPEAT_DELAY = 33 // ~30 fps
     }
 
@@ -44,15 +44,24 @@ class Repeater {
      * Defaulted to [DEFAULT_REPEAT_DELAY]
      */
     var repeaterDelay = DEFAULT_REPEAT_DELAY
+        set(value) {
+            val changed = field != value
+            field = value
+
+            if (changed && isRunning) {
+                timeout.scheduleAtFixedRate(value.toLong(), value.toLong())
+            }
+        }
 
     private var delayedHandler: Handler? = null
-    private var handlerThread: HandlerThread? = null
 
     private var listener: RepeatListener? = null
-    private val pollRunnable = PollRunnable()
+    private val timeout by lazy {
+        TimerWheel.shared.newTimeout(Runnable { listener?.onRepeat() }, delayedHandler)
+    }
 
     /**
-     * @param processOnStartingThread True if the repeating process should be handled on the same thread that created the Repeater
+     * @param processOnStartingThread True if the repeating process should be handled on the same thread that created the Repeater, otherwise it will be handled on the [TimerWheel] thread
      */
     @JvmOverloads
     constructor(processOnStartingThread: Boolean = true) {
@@ -74,14 +83,7 @@ class Repeater {
     fun start() {
         if (!isRunning) {
             isRunning = true
-
-            if (delayedHandler == null) {
-                handlerThread = HandlerThread(HANDLER_THREAD_NAME)
-                handlerThread?.start()
-                delayedHandler = Handler(handlerThread!!.looper)
-            }
-
-            pollRunnable.performPoll()
+            timeout.scheduleAtFixedRate(repeaterDelay.toLong(), repeaterDelay.toLong())
         }
     }
 
@@ -89,7 +91,7 @@ class Repeater {
      * Stops the repeater
      */
     fun stop() {
-        handlerThread?.quit()
+        timeout.cancel()
         isRunning = false
     }
 
@@ -105,18 +107,4 @@ class Repeater {
     interface RepeatListener {
         fun onRepeat()
     }
-
-    private inner class PollRunnable : Runnable {
-        override fun run() {
-            listener?.onRepeat()
-
-            if (isRunning) {
-                performPoll()
-            }
-        }
-
-        fun performPoll() {
-            delayedHandler?.postDelayed(pollRunnable, repeaterDelay.toLong())
-        }
-    }
 }
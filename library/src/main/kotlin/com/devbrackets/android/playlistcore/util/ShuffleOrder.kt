@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import androidx.annotation.IntRange
+
+/**
+ * The order to play the items in a playlist when shuffle is enabled.  Each "slot" in
+ * the order represents a position in the playlist, with the slots only being drawn
+ * when they're first requested.  The drawn slots are retained so that moving
+ * backwards returns the previously played positions.
+ */
+interface ShuffleOrder {
+
+    /**
+     * The number of slots in the order, which matches the number of items in the playlist
+     */
+    val size: Int
+
+    /**
+     * The number of slots at the start of the order that have been drawn and
+     * won't change
+     */
+    val drawnCount: Int
+
+    /**
+     * Retrieves the playlist position for the [slot] in the order, drawing
+     * any slots up to and including it.
+     *
+     * @param slot The slot in the order to get the position for
+     * @return The position in the playlist
+     */
+    fun positionAt(@IntRange(from = 0) slot: Int): Int
+
+    /**
+     * Draws the specified [position] as the next slot in the order instead of
+     * a random position.  If the position has already been drawn then its
+     * existing slot is returned.
+     *
+     * @param position The position in the playlist to draw
+     * @return The slot containing the position
+     */
+    fun draw(@IntRange(from = 0) position: Int): Int
+}
@@ -17,15 +17,16 @@
 package com.devbrackets.android.playlistcore.util
 
 import android.os.Handler
-import android.os.HandlerThread
+import android.os.SystemClock
 
 /**
  * A simple stopwatch to keep a correct and updated record of the running duration
- * of processes.
+ * of processes.  The [time] is calculated from the monotonic clock when it is
+ * requested; ticks are only scheduled (on the shared [TimerWheel]) while a
+ * [TickListener] is registered.
  */
 class StopWatch {
     companion object {
-        private val HANDLER_THREAD_NAME = "StopWatch_HandlerThread"
         private val DEFAULT_TICK_DELAY = 33 // ~30 fps
     }
 
@@ -42,18 +43,31 @@ class StopWatch {
      * The approximate duration between time updates
      */
     var tickDelay = DEFAULT_TICK_DELAY
+        set(value) {
+            val changed = field != value
+            field = value
+
+            if (changed) {
+                updateTicks()
+            }
+        }
+
     private var delayedHandler: Handler? = null
-    private var handlerThread: HandlerThread? = null
 
+    @Volatile
     private var listener: TickListener? = null
-    private val tickRunnable = TickRunnable()
+    private val tickTimeout by lazy {
+        TimerWheel.shared.newTimeout(Runnable { listener?.onStopWatchTick(time) }, delayedHandler)
+    }
+    private var ticking = false
 
+    @Volatile
     private var startTime: Long = 0
-    private var currentTime: Long = 0
+    @Volatile
     private var storedTime: Long = 0
 
     /**
-     * @param processOnStartingThread True if the repeating process should be handled on the same thread that created the Repeater
+     * @param processOnStartingThread True if the ticks should be handled on the same thread that created the StopWatch, otherwise they will be handled on the [TimerWheel] thread
      */
     @JvmOverloads
     constructor(processOnStartingThread: Boolean = true) {
@@ -78,16 +92,9 @@ class StopWatch {
             return
         }
 
+        startTime = SystemClock.elapsedRealtime()
         isRunning = true
-        startTime = System.currentTimeMillis()
-
-        if (handlerThread == null) {
-            handlerThread = HandlerThread(HANDLER_THREAD_NAME)
-            handlerThread?.start()
-            delayedHandler = Handler(handlerThread!!.looper)
-        }
-
-        tickRunnable.performTick()
+        updateTicks()
     }
 
     /**
@@ -98,21 +105,17 @@ class StopWatch {
             return
         }
 
-        delayedHandler?.removeCallbacksAndMessages(null)
-        handlerThread?.quit()
-
+        storedTime += SystemClock.elapsedRealtime() - startTime
         isRunning = false
-        currentTime = 0
-        storedTime += System.currentTimeMillis() - startTime
+        updateTicks()
     }
 
     /**
      * Resets the current time for the stopWatch
      */
     fun reset() {
-        currentTime = 0
         storedTime = 0
-        startTime = System.currentTimeMillis()
+        startTime = SystemClock.elapsedRealtime()
     }
 
     /**
@@ -121,8 +124,7 @@ class StopWatch {
      * @param time The new stopwatch time in milliseconds
      */
     fun overrideCurrentTime(time: Long) {
-        startTime = System.currentTimeMillis()
-        currentTime = 0
+        startTime = SystemClock.elapsedRealtime()
         storedTime = time
     }
 
@@ -133,7 +135,7 @@ class StopWatch {
      * @return The time in milliseconds
      */
     val time: Long
-        get() = currentTime + storedTime
+        get() = if (isRunning) storedTime + (SystemClock.elapsedRealtime() - startTime) else storedTime
 
     /**
      * Sets the listener to be notified for each time update (tick)
@@ -142,25 +144,25 @@ class StopWatch {
      */
     fun setTickListener(listener: TickListener?) {
         this.listener = listener
+        updateTicks()
     }
 
-    interface TickListener {
-        fun onStopWatchTick(currentTime: Long)
-    }
-
-    private inner class TickRunnable : Runnable {
-        override fun run() {
-            currentTime = System.currentTimeMillis() - startTime
-
-            if (isRunning) {
-                performTick()
-            }
-
-            listener?.onStopWatchTick(currentTime + storedTime)
+    /**
+     * Schedules or cancels the ticks depending on if the stopwatch is running
+     * and there is a listener to inform
+     */
+    private fun updateTicks() {
+        val shouldTick = isRunning && listener != null
+        if (shouldTick) {
+            tickTimeout.scheduleAtFixedRate(tickDelay.toLong(), tickDelay.toLong())
+        } else if (ticking) {
+            tickTimeout.cancel()
         }
 
-        fun performTick() {
-            delayedHandler?.postDelayed(tickRunnable, tickDelay.toLong())
-        }
+        ticking = shouldTick
+    }
+
+    interface TickListener {
+        fun onStopWatchTick(currentTime: Long)
     }
 }
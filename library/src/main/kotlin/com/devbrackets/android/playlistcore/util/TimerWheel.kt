@@ -0,0 +1,382 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import android.os.Handler
+import android.util.Log
+import androidx.annotation.IntRange
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * A hashed timer wheel that runs all of the one-shot and periodic timers scheduled
+ * on it from a single, long-lived thread.  Periodic timers use fixed-rate semantics
+ * (each deadline is calculated from the previous deadline instead of from when the
+ * task ran) so they don't drift, and the thread waits without waking up while no
+ * timers are scheduled.
+ *
+ * Timers are represented by a reusable [Timeout] so that re-scheduling them
+ * doesn't allocate.  When a [Handler] is specified for a [Timeout] the task will be
+ * posted to it instead of being run on the timer thread.
+ *
+ * @param tickMillis The resolution of the wheel in milliseconds
+ * @param wheelSize The number of buckets in the wheel, this will be rounded up to a power of 2
+ */
+class TimerWheel @JvmOverloads constructor(
+        @IntRange(from = 1) tickMillis: Long = DEFAULT_TICK_MILLIS,
+        @IntRange(from = 1) wheelSize: Int = DEFAULT_WHEEL_SIZE,
+        private val threadName: String = DEFAULT_THREAD_NAME
+) {
+    companion object {
+        private const val TAG = "TimerWheel"
+        private const val DEFAULT_THREAD_NAME = "PlaylistCore_TimerWheel"
+        private const val NO_BUCKET = -1
+
+        const val DEFAULT_TICK_MILLIS = 1L
+        const val DEFAULT_WHEEL_SIZE = 512
+
+        /**
+         * The [TimerWheel] shared by all of the library timers
+         */
+        @JvmStatic
+        val shared: TimerWheel by lazy {
+            TimerWheel()
+        }
+    }
+
+    private val tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis)
+    private val startNanos = System.nanoTime()
+
+    private val buckets: Array<Timeout?>
+    private val mask: Int
+
+    private val lock = ReentrantLock()
+    private val timeoutsChanged = lock.newCondition()
+
+    private var scheduledCount = 0
+    private var processedTick = 0L
+    private var workerThread: Thread? = null
+
+    init {
+        val size = Integer.highestOneBit(Math.max(1, wheelSize) * 2 - 1)
+        buckets = arrayOfNulls(size)
+        mask = size - 1
+    }
+
+    /**
+     * Creates a [Timeout] for the [task] that can be scheduled (and re-scheduled)
+     * on this wheel.
+     *
+     * @param task The task to run when the timeout expires
+     * @param handler The [Handler] to run the [task] on, or `null` to run it on the timer thread
+     */
+    @JvmOverloads
+    fun newTimeout(task: Runnable, handler: Handler? = null): Timeout {
+        return Timeout(task, handler)
+    }
+
+    /**
+     * Runs the [task] once after the [delayMillis] has elapsed
+     */
+    @JvmOverloads
+    fun schedule(@IntRange(from = 0) delayMillis: Long, task: Runnable, handler: Handler? = null): Timeout {
+        return newTimeout(task, handler).apply {
+            schedule(delayMillis)
+        }
+    }
+
+    /**
+     * Runs the [task] every [periodMillis] once the [initialDelayMillis] has elapsed
+     */
+    @JvmOverloads
+    fun scheduleAtFixedRate(@IntRange(from = 0) initialDelayMillis: Long, @IntRange(from = 1) periodMillis: Long, task: Runnable, handler: Handler? = null): Timeout {
+        return newTimeout(task, handler).apply {
+            scheduleAtFixedRate(initialDelayMillis, periodMillis)
+        }
+    }
+
+    private fun currentTick(): Long {
+        return (System.nanoTime() - startNanos) / tickNanos
+    }
+
+    private fun toTicks(millis: Long): Long {
+        return Math.max(0, (TimeUnit.MILLISECONDS.toNanos(millis) + tickNanos - 1) / tickNanos)
+    }
+
+    /**
+     * Adds the [timeout] to the bucket for its deadline.  This must be called
+     * while holding the [lock]
+     */
+    private fun addTimeout(timeout: Timeout) {
+        val bucket = (timeout.deadlineTick and mask.toLong()).toInt()
+        val head = buckets[bucket]
+
+        timeout.bucket = bucket
+        timeout.previous = null
+        timeout.next = head
+        head?.previous = timeout
+        buckets[bucket] = timeout
+
+        scheduledCount++
+        startWorker()
+        timeoutsChanged.signal()
+    }
+
+    /**
+     * Removes the [timeout] from its bucket.  This must be called while holding the [lock]
+     */
+    private fun removeTimeout(timeout: Timeout) {
+        if (timeout.bucket == NO_BUCKET) {
+            return
+        }
+
+        val previous = timeout.previous
+        if (previous != null) {
+            previous.next = timeout.next
+        } else {
+            buckets[timeout.bucket] = timeout.next
+        }
+
+        timeout.next?.previous = timeout.previous
+        timeout.next = null
+        timeout.previous = null
+        timeout.bucket = NO_BUCKET
+
+        scheduledCount--
+    }
+
+    private fun startWorker() {
+        if (workerThread != null) {
+            return
+        }
+
+        workerThread = Thread({ processTimeouts() }, threadName).apply {
+            isDaemon = true
+            start()
+        }
+    }
+
+    private fun processTimeouts() {
+        while (true) {
+            var expired: Timeout? = null
+
+            lock.withLock {
+                // The processedTick isn't moved forward while idle since a timeout armed before
+                // the worker wakes up could have a deadline before the tick it wakes on, the
+                // collectExpired scan is already limited to a single rotation
+                while (scheduledCount == 0) {
+                    timeoutsChanged.await()
+                }
+
+                val tick = currentTick()
+                expired = collectExpired(tick)
+
+                if (expired == null) {
+                    val nextTick = findNextDeadline(tick)
+                    val waitNanos = startNanos + nextTick * tickNanos - System.nanoTime()
+                    if (waitNanos > 0) {
+                        timeoutsChanged.awaitNanos(waitNanos)
+                    }
+                }
+            }
+
+            // Runs the expired tasks outside of the lock so they can re-schedule themselves
+            var timeout = expired
+            while (timeout != null) {
+                val nextExpired = timeout.nextExpired
+                timeout.nextExpired = null
+                timeout.fire()
+                timeout = nextExpired
+            }
+        }
+    }
+
+    /**
+     * Removes the timeouts that have expired by the [tick] from the wheel, re-adding
+     * the periodic ones with their next deadline.  This must be called while holding
+     * the [lock]
+     *
+     * @return The first expired timeout, linked through [Timeout.nextExpired]
+     */
+    private fun collectExpired(tick: Long): Timeout? {
+        var expired: Timeout? = null
+        var periodic: Timeout? = null
+
+        val firstTick = Math.max(processedTick + 1, tick - mask)
+        for (currentTick in firstTick..tick) {
+            var timeout = buckets[(currentTick and mask.toLong()).toInt()]
+            while (timeout != null) {
+                val next = timeout.next
+                if (timeout.deadlineTick <= tick) {
+                    removeTimeout(timeout)
+                    timeout.firedGeneration = timeout.generation
+                    timeout.nextExpired = expired
+                    expired = timeout
+
+                    if (timeout.periodTicks > 0) {
+                        timeout.nextPeriodic = periodic
+                        periodic = timeout
+                    }
+                }
+
+                timeout = next
+            }
+        }
+
+        processedTick = tick
+
+        // Re-schedules the periodic timeouts, skipping any periods that were missed while keeping the same phase
+        while (periodic != null) {
+            val next = periodic.nextPeriodic
+            periodic.nextPeriodic = null
+
+            periodic.deadlineTick += periodic.periodTicks
+            if (periodic.deadlineTick <= tick) {
+                val missedPeriods = (tick - periodic.deadlineTick) / periodic.periodTicks + 1
+                periodic.deadlineTick += missedPeriods * periodic.periodTicks
+            }
+
+            addTimeout(periodic)
+            periodic = next
+        }
+
+        return expired
+    }
+
+    /**
+     * Finds the next tick that has a timeout expiring, limited to a single
+     * rotation of the wheel.  This must be called while holding the [lock]
+     */
+    private fun findNextDeadline(tick: Long): Long {
+        for (offset in 1..buckets.size) {
+            val nextTick = tick + offset
+            var timeout = buckets[(nextTick and mask.toLong()).toInt()]
+
+            while (timeout != null) {
+                if (timeout.deadlineTick <= nextTick) {
+                    return nextTick
+                }
+
+                timeout = timeout.next
+            }
+        }
+
+        return tick + buckets.size
+    }
+
+    /**
+     * A reusable timer on the [TimerWheel].  Scheduling a [Timeout] that is already
+     * scheduled replaces the previous schedule.
+     */
+    inner class Timeout internal constructor(private val task: Runnable, private val handler: Handler?) {
+        internal var deadlineTick = 0L
+        internal var periodTicks = 0L
+
+        internal var bucket = NO_BUCKET
+        internal var next: Timeout? = null
+        internal var previous: Timeout? = null
+        internal var nextExpired: Timeout? = null
+        internal var nextPeriodic: Timeout? = null
+
+        /**
+         * Incremented every time the timeout is scheduled or cancelled so that tasks
+         * that have already been posted to the [handler] can determine if they're stale
+         */
+        @Volatile
+        internal var generation = 0
+
+        @Volatile
+        internal var firedGeneration = -1
+
+        @Volatile
+        private var dispatchPending = false
+        private val dispatchRunnable = Runnable {
+            dispatchPending = false
+            if (firedGeneration == generation) {
+                runTask()
+            }
+        }
+
+        /**
+         * `true` if the timeout is scheduled to expire
+         */
+        val isScheduled: Boolean
+            get() = lock.withLock { bucket != NO_BUCKET }
+
+        /**
+         * Runs the task once after the [delayMillis] has elapsed
+         */
+        fun schedule(@IntRange(from = 0) delayMillis: Long) {
+            arm(delayMillis, 0)
+        }
+
+        /**
+         * Runs the task every [periodMillis] once the [initialDelayMillis] has elapsed
+         */
+        fun scheduleAtFixedRate(@IntRange(from = 0) initialDelayMillis: Long, @IntRange(from = 1) periodMillis: Long) {
+            arm(initialDelayMillis, Math.max(1, toTicks(periodMillis)))
+        }
+
+        /**
+         * Cancels the timeout, including any run that has been posted to the
+         * [Handler] but hasn't started yet
+         */
+        fun cancel() {
+            lock.withLock {
+                generation++
+                removeTimeout(this)
+            }
+        }
+
+        private fun arm(delayMillis: Long, periodTicks: Long) {
+            lock.withLock {
+                generation++
+                removeTimeout(this)
+
+                // The ticks up to the processedTick have already been scanned, so earlier deadlines would wait a full rotation
+                this.periodTicks = periodTicks
+                deadlineTick = Math.max(processedTick + 1, currentTick() + toTicks(delayMillis))
+                addTimeout(this)
+            }
+        }
+
+        internal fun fire() {
+            if (handler == null) {
+                if (firedGeneration == generation) {
+                    runTask()
+                }
+
+                return
+            }
+
+            // Only a single run is posted at a time so a busy Handler doesn't accumulate runs
+            if (!dispatchPending) {
+                dispatchPending = true
+                handler.post(dispatchRunnable)
+            }
+        }
+
+        private fun runTask() {
+            try {
+                task.run()
+            } catch (e: Exception) {
+                Log.e(TAG, "Error running the timer task $task", e)
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2021 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.playlistcore.util
+
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+
+/**
+ * A registry of weakly referenced listeners that is optimized for frequent
+ * notifications.  Registering and unregistering listeners copies the
+ * registered references in to a new array (copy-on-write) so that [notify]
+ * can iterate a snapshot without any locking or allocations.  Listeners
+ * that have been garbage collected are purged using a [ReferenceQueue]
+ * instead of being checked for during iteration.
+ */
+open class WeakListenerRegistry<T : Any> {
+    @Suppress("UNCHECKED_CAST")
+    private val emptyReferences = arrayOfNulls<WeakReference<*>>(0) as Array<WeakReference<T>>
+
+    protected val referenceQueue = ReferenceQueue<T>()
+    protected val lock = Any()
+
+    /**
+     * The current snapshot of registered references.  This array is never
+     * modified once published, so it's safe to iterate from any thread.
+     */
+    @Volatile
+    var references: Array<WeakReference<T>> = emptyReferences
+        private set
+
+    /**
+     * `true` if there aren't any registered listeners
+     */
+    val isEmpty: Boolean
+        get() = references.isEmpty()
+
+    /**
+     * Creates a [WeakReference] to the [listener] that will be purged from the
+     * registry once the listener has been garbage collected
+     */
+    fun newReference(listener: T): WeakReference<T> {
+        return WeakReference(listener, referenceQueue)
+    }
+
+    /**
+     * Registers the [listener]
+     */
+    fun add(listener: T) {
+        add(newReference(listener))
+    }
+
+    /**
+     * Registers the [reference].  This should have been created with
+     * [newReference] (or use the [referenceQueue]) so that it's purged once
+     * the listener has been garbage collected.
+     */
+    fun add(reference: WeakReference<T>) {
+        synchronized(lock) {
+            drainReferenceQueue()
+
+            val current = references
+            val updated = current.copyOf(current.size + 1)
+            updated[current.size] = reference
+            publish(updated, updated.size)
+        }
+
+        onReferencesChanged()
+    }
+
+    /**
+     * Unregisters the [listener] along with any listeners that have been
+     * garbage collected
+     */
+    fun remove(listener: T) {
+        synchronized(lock) {
+            drainReferenceQueue()
+            removeReferences { it == null || it == listener }
+        }
+
+        onReferencesChanged()
+    }
+
+    /**
+     * Removes any listeners that have been garbage collected.  This is
+     * lock free when nothing has been collected.
+     *
+     * @return `true` if any references were purged
+     */
+    fun purge(): Boolean {
+        if (referenceQueue.poll() == null) {
+            return false
+        }
+
+        synchronized(lock) {
+            drainReferenceQueue()
+            removeReferences { it == null }
+        }
+
+        onReferencesChanged()
+        return true
+    }
+
+    /**
+     * Informs the registered listeners with the [handler] until one of them
+     * consumes the event
+     *
+     * @return `true` if the event was consumed
+     */
+    inline fun notify(handler: (T) -> Boolean): Boolean {
+        purge()
+
+        for (reference in references) {
+            val listener = reference.get() ?: continue
+            if (handler(listener)) {
+                return true
+            }
+        }
+
+        return false
+    }
+
+    /**
+     * Called after the registered references have changed
+     */
+    protected open fun onReferencesChanged() {
+        // Purposefully left blank
+    }
+
+    private fun drainReferenceQueue() {
+        @Suppress("ControlFlowWithEmptyBody")
+        while (referenceQueue.poll() != null) {
+        }
+    }
+
+    private inline fun removeReferences(shouldRemove: (T?) -> Boolean) {
+        val current = references
+        val updated = arrayOfNulls<WeakReference<*>>(current.size)
+
+        var size = 0
+        for (reference in current) {
+            if (!shouldRemove(reference.get())) {
+                updated[size++] = reference
+            }
+        }
+
+        if (size != current.size) {
+            publish(updated, size)
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun publish(updated: Array<out WeakReference<*>?>, size: Int) {
+        references = if (size == 0) emptyReferences else (if (size == updated.size) updated else updated.copyOf(size)) as Array<WeakReference<T>>
+    }
+}